@@ -0,0 +1,225 @@
+package com.bancario.msdirectorio.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import com.bancario.msdirectorio.converter.RutaLookupCodec;
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.bancario.msdirectorio.mapper.InstitucionMapper;
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.InterruptorCircuito;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+import com.bancario.msdirectorio.repositorio.InstitucionParcialRepositorio;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+import com.bancario.msdirectorio.repositorio.InterruptorCircuitoRepositorio;
+import com.bancario.msdirectorio.servicio.CacheLookup;
+import com.bancario.msdirectorio.servicio.CoalescedorReglas;
+import com.bancario.msdirectorio.servicio.DirectorioServicio;
+import com.bancario.msdirectorio.servicio.IndiceEnrutamiento;
+import com.bancario.msdirectorio.servicio.IngestaReportes;
+import com.bancario.msdirectorio.servicio.InterruptorRedis;
+import com.bancario.msdirectorio.servicio.MotorInterruptor;
+import com.bancario.msdirectorio.servicio.RegistroCambios;
+import com.bancario.msdirectorio.servicio.RespuestasLookup;
+import com.bancario.msdirectorio.servicio.SnapshotDirectorio;
+import com.bancario.msdirectorio.servicio.SnapshotRutasLocal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+/**
+ * Directorio sintético y los servicios reales del directorio, construidos por
+ * Spring sobre dobles en memoria de DynamoDB y Redis con la configuración por
+ * defecto de las propiedades.
+ */
+public final class DirectorioSintetico {
+
+    /**
+     * Dónde se resuelve el lookup: el índice cargado (como en régimen) o, con el
+     * índice sin cargar (arranque en frío), el L1 caliente o Redis (L1
+     * desactivado). En los modos de cache se precargan las rutas de
+     * {@link #binsCacheados} y el índice no se carga mientras todo acierte.
+     */
+    public enum ModoCache {
+        INDICE, L1, REDIS
+    }
+
+    final List<Institucion> instituciones;
+    final String[] bins;
+    final String[] binsDesconocidos;
+    final String[] binsCacheados;
+    final InstitucionMapper mapper;
+    final MotorInterruptor motorInterruptor;
+    final DirectorioServicio servicio;
+
+    private final AnnotationConfigApplicationContext contexto;
+
+    DirectorioSintetico(int numInstituciones, int reglasPorInstitucion, ModoCache modo) {
+        this(numInstituciones, reglasPorInstitucion, modo, Duration.ZERO);
+    }
+
+    /**
+     * {@code latenciaRedis} es lo que tarda cada GET/MGET del doble de Redis.
+     */
+    DirectorioSintetico(int numInstituciones, int reglasPorInstitucion, ModoCache modo, Duration latenciaRedis) {
+        instituciones = generar(numInstituciones, reglasPorInstitucion);
+        bins = new String[numInstituciones * reglasPorInstitucion];
+        int b = 0;
+        for (Institucion inst : instituciones) {
+            for (ReglaEnrutamiento regla : inst.getReglasEnrutamiento()) {
+                bins[b++] = regla.getPrefijoBin() + "12345678";
+            }
+        }
+
+        // Ningún prefijo generado empieza por 9.
+        binsDesconocidos = new String[bins.length];
+        for (int i = 0; i < bins.length; i++) {
+            binsDesconocidos[i] = "9" + bins[i].substring(1);
+        }
+
+        contexto = new AnnotationConfigApplicationContext();
+        contexto.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "directorio.cache.l1.max-entradas", modo == ModoCache.REDIS ? 1L : 1_000_000L,
+                "directorio.cache.l1.ttl-segundos", modo == ModoCache.REDIS ? 0L : 3600L,
+                "benchmark.redis.latencia-micros", latenciaRedis.toNanos() / 1000)));
+        contexto.register(Dobles.class);
+        contexto.register(InstitucionMapper.class, InterruptorCircuitoRepositorio.class,
+                InstitucionParcialRepositorio.class, InterruptorRedis.class, CacheLookup.class,
+                SnapshotRutasLocal.class, IndiceEnrutamiento.class, RegistroCambios.class, MotorInterruptor.class,
+                SnapshotDirectorio.class, RespuestasLookup.class, CoalescedorReglas.class, IngestaReportes.class,
+                DirectorioServicio.class);
+        contexto.refresh();
+        contexto.getBean(InstitucionRepositorio.class).saveAll(instituciones);
+
+        mapper = contexto.getBean(InstitucionMapper.class);
+        motorInterruptor = contexto.getBean(MotorInterruptor.class);
+        servicio = contexto.getBean(DirectorioServicio.class);
+        if (modo == ModoCache.INDICE) {
+            contexto.getBean(IndiceEnrutamiento.class).asegurarCargado();
+            binsCacheados = new String[0];
+        } else {
+            binsCacheados = precargar(contexto.getBean(CacheLookup.class));
+        }
+    }
+
+    void cerrar() {
+        contexto.close();
+    }
+
+    /**
+     * Cachea la ruta de los bancos disponibles como lo haría un lookup previo,
+     * sin pasar por el índice.
+     */
+    private String[] precargar(CacheLookup cacheLookup) {
+        Map<String, InstitucionDTO> entradas = new LinkedHashMap<>();
+        for (Institucion inst : instituciones) {
+            if (!motorInterruptor.permiteTrafico(inst.getInterruptorCircuito())) {
+                continue;
+            }
+            InstitucionDTO dto = mapper.toRutaDTO(inst);
+            for (ReglaEnrutamiento regla : inst.getReglasEnrutamiento()) {
+                entradas.put(regla.getPrefijoBin() + "12345678", dto);
+            }
+        }
+        cacheLookup.guardarVarios(entradas);
+        return entradas.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Dobles en memoria de DynamoDB y Redis. Las escrituras del interruptor y de
+     * reglas no se ejecutan en los benchmarks (sin {@code @EnableScheduling} no
+     * hay volcados), así que el cliente de DynamoDB las rechaza.
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class Dobles {
+
+        @Bean
+        InstitucionRepositorio institucionRepositorio() {
+            return new RepositorioEnMemoria();
+        }
+
+        @Bean
+        DynamoDbAsyncClient dynamoDbAsyncClient() {
+            return (DynamoDbAsyncClient) Proxy.newProxyInstance(DynamoDbAsyncClient.class.getClassLoader(),
+                    new Class<?>[] { DynamoDbAsyncClient.class }, (proxy, metodo, args) -> switch (metodo.getName()) {
+                        case "close" -> null;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "DynamoDbAsyncClient del benchmark";
+                        default -> throw new UnsupportedOperationException(
+                                "DynamoDB no disponible en el benchmark: " + metodo.getName());
+                    });
+        }
+
+        @Bean
+        RedisEnMemoria redisConnectionFactory(@Value("${benchmark.redis.latencia-micros}") long latenciaMicros) {
+            return new RedisEnMemoria(true, Duration.ofNanos(latenciaMicros * 1000));
+        }
+
+        @Bean
+        RedisTemplate<String, InstitucionDTO> lookupRedisTemplate(RedisEnMemoria redis) {
+            RedisTemplate<String, InstitucionDTO> template = new RedisTemplate<>();
+            template.setConnectionFactory(redis);
+            template.setKeySerializer(new StringRedisSerializer());
+            template.setValueSerializer(new RutaLookupCodec());
+            return template;
+        }
+
+        @Bean
+        StringRedisTemplate stringRedisTemplate(RedisEnMemoria redis) {
+            return new StringRedisTemplate(redis);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    /**
+     * Instituciones con prefijos de 8 dígitos únicos. Una de cada diez tiene el
+     * interruptor abierto y una de cada diez semiabierto (recuperación vencida).
+     */
+    private static List<Institucion> generar(int numInstituciones, int reglasPorInstitucion) {
+        LocalDateTime ahora = LocalDateTime.now(ZoneOffset.UTC);
+        List<Institucion> lista = new ArrayList<>(numInstituciones);
+        for (int i = 0; i < numInstituciones; i++) {
+            List<ReglaEnrutamiento> reglas = new ArrayList<>(reglasPorInstitucion);
+            for (int r = 0; r < reglasPorInstitucion; r++) {
+                reglas.add(new ReglaEnrutamiento(String.format("%08d", 10_000_000 + i * reglasPorInstitucion + r),
+                        "AGENTE_" + r));
+            }
+            InterruptorCircuito interruptor = switch (i % 10) {
+                case 0 -> new InterruptorCircuito(true, 5, ahora);
+                case 1 -> new InterruptorCircuito(true, 5, ahora.minusMinutes(5));
+                default -> new InterruptorCircuito(false, 0, null);
+            };
+            lista.add(new Institucion("id-" + i, "BANCO" + i, "Banco sintético " + i,
+                    "https://banco" + i + ".example/api", "LLAVE-" + i, Institucion.Estado.ONLINE.name(),
+                    reglas, interruptor));
+        }
+        return lista;
+    }
+}
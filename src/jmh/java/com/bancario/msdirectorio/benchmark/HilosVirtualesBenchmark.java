@@ -0,0 +1,87 @@
+package com.bancario.msdirectorio.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ráfagas de lookups concurrentes que bloquean en E/S, atendidas como lo hace
+ * Tomcat: con su pool por defecto de 200 hilos de plataforma
+ * ({@code spring.threads.virtual.enabled=false}) o con un hilo virtual por
+ * petición. Cada lookup es un GET a Redis (modo {@code REDIS}, L1 desactivado)
+ * que tarda {@code latenciaMs}, en lugar de una ida y vuelta real por red.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 8, time = 2)
+@Fork(1)
+public class HilosVirtualesBenchmark {
+
+    private static final int HILOS_TOMCAT = 200;
+
+    public enum Hilos {
+        PLATAFORMA, VIRTUALES
+    }
+
+    @Param({ "PLATAFORMA", "VIRTUALES" })
+    Hilos hilos;
+
+    @Param({ "200", "2000" })
+    int concurrentes;
+
+    @Param({ "2" })
+    long latenciaMs;
+
+    DirectorioSintetico directorio;
+    ExecutorService peticiones;
+
+    @Setup
+    public void preparar() {
+        directorio = new DirectorioSintetico(100, 50, DirectorioSintetico.ModoCache.REDIS,
+                Duration.ofMillis(latenciaMs));
+        peticiones = hilos == Hilos.PLATAFORMA ? Executors.newFixedThreadPool(HILOS_TOMCAT)
+                : Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown
+    public void cerrar() {
+        peticiones.shutdownNow();
+        directorio.cerrar();
+    }
+
+    /**
+     * Tiempo hasta completar {@code concurrentes} lookups que llegan a la vez.
+     */
+    @Benchmark
+    public int rafaga() throws Exception {
+        String[] bins = directorio.binsCacheados;
+        List<Future<?>> enVuelo = new ArrayList<>(concurrentes);
+        for (int i = 0; i < concurrentes; i++) {
+            String bin = bins[i % bins.length];
+            enVuelo.add(peticiones.submit(() -> directorio.servicio.descubrirBancoPorBin(bin)));
+        }
+        for (Future<?> peticion : enVuelo) {
+            peticion.get();
+        }
+        return enVuelo.size();
+    }
+}
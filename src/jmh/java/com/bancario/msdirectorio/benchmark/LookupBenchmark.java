@@ -0,0 +1,92 @@
+package com.bancario.msdirectorio.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+
+/**
+ * {@code DirectorioServicio.descubrirBancoPorBin} con números de cuenta
+ * completos que recorren todos los prefijos del directorio. En modo
+ * {@code INDICE} se mide el régimen normal (índice cargado); en {@code L1} y
+ * {@code REDIS}, el arranque en frío servido por las caches, solo sobre BINs
+ * cacheados para que el índice no llegue a cargarse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    int instituciones;
+
+    @Param({ "50" })
+    int reglasPorInstitucion;
+
+    @Param({ "INDICE", "L1", "REDIS" })
+    DirectorioSintetico.ModoCache modo;
+
+    DirectorioSintetico directorio;
+
+    @Setup
+    public void preparar() {
+        directorio = new DirectorioSintetico(instituciones, reglasPorInstitucion, modo);
+    }
+
+    @TearDown
+    public void cerrar() {
+        directorio.cerrar();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+
+        String siguiente(String[] bins) {
+            i = i + 1 == bins.length ? 0 : i + 1;
+            return bins[i];
+        }
+    }
+
+    @Benchmark
+    public Optional<InstitucionDTO> descubrirBancoPorBin(Cursor cursor) {
+        return directorio.servicio.descubrirBancoPorBin(cursor.siguiente(bins()));
+    }
+
+    /**
+     * Solo tiene sentido en modo {@code INDICE}: sin índice, un BIN desconocido
+     * falla en ambas caches y carga el índice.
+     */
+    @Benchmark
+    public Optional<InstitucionDTO> descubrirBancoPorBinDesconocido(Cursor cursor) {
+        return directorio.servicio.descubrirBancoPorBin(cursor.siguiente(directorio.binsDesconocidos));
+    }
+
+    /**
+     * Ruta del endpoint: bytes de la respuesta ya serializados por versión.
+     */
+    @Benchmark
+    public Optional<byte[]> descubrirRutaSerializada(Cursor cursor) {
+        return directorio.servicio.descubrirRutaSerializada(cursor.siguiente(bins()));
+    }
+
+    private String[] bins() {
+        return modo == DirectorioSintetico.ModoCache.INDICE ? directorio.bins : directorio.binsCacheados;
+    }
+}
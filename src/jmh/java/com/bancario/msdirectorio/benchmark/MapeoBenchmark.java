@@ -0,0 +1,81 @@
+package com.bancario.msdirectorio.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.bancario.msdirectorio.modelo.Institucion;
+
+/**
+ * Chequeo de disponibilidad y mapeo entidad -> DTO, individual y del
+ * directorio completo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeoBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    int instituciones;
+
+    @Param({ "50" })
+    int reglasPorInstitucion;
+
+    DirectorioSintetico directorio;
+
+    @Setup
+    public void preparar() {
+        directorio = new DirectorioSintetico(instituciones, reglasPorInstitucion, DirectorioSintetico.ModoCache.INDICE);
+    }
+
+    @TearDown
+    public void cerrar() {
+        directorio.cerrar();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+
+        Institucion siguiente(List<Institucion> lista) {
+            i = i + 1 == lista.size() ? 0 : i + 1;
+            return lista.get(i);
+        }
+    }
+
+    /**
+     * Lo que hace {@code DirectorioServicio.validarDisponibilidad}, que es
+     * privado y delega en el motor del interruptor.
+     */
+    @Benchmark
+    public boolean validarDisponibilidad(Cursor cursor) {
+        return directorio.motorInterruptor.permiteTrafico(cursor.siguiente(directorio.instituciones)
+                .getInterruptorCircuito());
+    }
+
+    @Benchmark
+    public InstitucionDTO toDTO(Cursor cursor) {
+        return directorio.mapper.toDTO(cursor.siguiente(directorio.instituciones));
+    }
+
+    @Benchmark
+    public List<InstitucionDTO> toDTOList() {
+        return directorio.mapper.toDTOList(directorio.instituciones);
+    }
+}
@@ -0,0 +1,120 @@
+package com.bancario.msdirectorio.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+
+/**
+ * Redis en memoria para benchmarks: atiende GET/SET/MGET/DEL sobre un mapa
+ * (los pipelines se ejecutan comando a comando),
+ * pasando por RedisTemplate y sus serializadores reales. Con
+ * {@code retener = false} descarta las escrituras y todo GET es un miss. Con
+ * {@code latencia} distinta de cero, GET y MGET bloquean el hilo ese tiempo,
+ * como la ida y vuelta por red a un Redis real.
+ */
+class RedisEnMemoria implements RedisConnectionFactory {
+
+    private final Map<ByteBuffer, byte[]> datos = new ConcurrentHashMap<>();
+    private final boolean retener;
+    private final Duration latencia;
+    private final RedisConnection conexion;
+
+    RedisEnMemoria(boolean retener) {
+        this(retener, Duration.ZERO);
+    }
+
+    RedisEnMemoria(boolean retener, Duration latencia) {
+        this.retener = retener;
+        this.latencia = latencia;
+        this.conexion = (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { RedisConnection.class }, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "stringCommands", "keyCommands", "zSetCommands" -> proxy;
+                    case "get" -> {
+                        esperarRed();
+                        yield datos.get(ByteBuffer.wrap((byte[]) args[0]));
+                    }
+                    case "mGet" -> {
+                        esperarRed();
+                        yield mget((byte[][]) args[0]);
+                    }
+                    case "set" -> guardar((byte[]) args[0], (byte[]) args[1]);
+                    case "setEx", "pSetEx" -> guardar((byte[]) args[0], (byte[]) args[2]);
+                    case "del", "unlink" -> borrar((byte[][]) args[0]);
+                    // El índice por BIC no se consulta en los benchmarks.
+                    case "zAdd", "pExpire" -> true;
+                    case "zRemRangeByScore" -> 0L;
+                    case "openPipeline" -> null;
+                    case "closePipeline" -> List.of();
+                    case "isClosed", "isPipelined", "isQueueing" -> false;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "RedisEnMemoria";
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    private void esperarRed() throws InterruptedException {
+        if (!latencia.isZero()) {
+            Thread.sleep(latencia);
+        }
+    }
+
+    private List<byte[]> mget(byte[][] claves) {
+        List<byte[]> valores = new ArrayList<>(claves.length);
+        for (byte[] clave : claves) {
+            valores.add(datos.get(ByteBuffer.wrap(clave)));
+        }
+        return valores;
+    }
+
+    private Boolean guardar(byte[] clave, byte[] valor) {
+        if (retener) {
+            datos.put(ByteBuffer.wrap(clave), valor);
+        }
+        return true;
+    }
+
+    private Long borrar(byte[][] claves) {
+        long borradas = 0;
+        for (byte[] clave : claves) {
+            borradas += datos.remove(ByteBuffer.wrap(clave)) != null ? 1 : 0;
+        }
+        return borradas;
+    }
+
+    @Override
+    public RedisConnection getConnection() {
+        return conexion;
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return true;
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.bancario.msdirectorio.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+
+/**
+ * Tabla de instituciones en memoria para benchmarks.
+ */
+class RepositorioEnMemoria implements InstitucionRepositorio {
+
+    private final Map<String, Institucion> porId = new LinkedHashMap<>();
+
+    @Override
+    public Optional<Institucion> findByCodigoBic(String codigoBic) {
+        return porId.values().stream().filter(i -> codigoBic.equals(i.getCodigoBic())).findFirst();
+    }
+
+    @Override
+    public Optional<Institucion> findByIdConsistente(String id) {
+        return findById(id);
+    }
+
+    @Override
+    public List<Institucion> findAllConsistente() {
+        return new ArrayList<>(porId.values());
+    }
+
+    @Override
+    public Pagina escanearPagina(String desdeId, int limite) {
+        List<Institucion> todas = new ArrayList<>(porId.values());
+        int desde = desdeId == null ? 0 : todas.indexOf(porId.get(desdeId)) + 1;
+        int hasta = limite > 0 ? Math.min(desde + limite, todas.size()) : todas.size();
+        return new Pagina(todas.subList(desde, hasta), hasta < todas.size() ? todas.get(hasta - 1).getId() : null);
+    }
+
+    @Override
+    public <S extends Institucion> S save(S entity) {
+        if (entity.getId() == null) {
+            entity.setId(UUID.randomUUID().toString());
+        }
+        porId.put(entity.getId(), entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends Institucion> Iterable<S> saveAll(Iterable<S> entities) {
+        entities.forEach(this::save);
+        return entities;
+    }
+
+    @Override
+    public Optional<Institucion> findById(String id) {
+        return Optional.ofNullable(porId.get(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return porId.containsKey(id);
+    }
+
+    @Override
+    public Iterable<Institucion> findAll() {
+        return new ArrayList<>(porId.values());
+    }
+
+    @Override
+    public Iterable<Institucion> findAllById(Iterable<String> ids) {
+        List<Institucion> encontradas = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(encontradas::add));
+        return encontradas;
+    }
+
+    @Override
+    public long count() {
+        return porId.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        porId.remove(id);
+    }
+
+    @Override
+    public void delete(Institucion entity) {
+        porId.remove(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(porId::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Institucion> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        porId.clear();
+    }
+}
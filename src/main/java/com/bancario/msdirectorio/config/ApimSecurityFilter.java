@@ -37,6 +37,8 @@ public class ApimSecurityFilter implements Filter {
         }
 
         String path = httpRequest.getRequestURI();
+        // Solo las sondas de salud quedan fuera; /actuator/prometheus publica BICs y
+        // volúmenes por banco y exige el secreto como el resto.
         if (path.contains("/actuator/health") || path.contains("/health")) {
             chain.doFilter(request, response);
             return;
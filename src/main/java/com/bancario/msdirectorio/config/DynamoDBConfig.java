@@ -1,26 +1,56 @@
 package com.bancario.msdirectorio.config;
 
-import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
-import com.amazonaws.regions.Regions;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
-import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
-import org.socialsignin.spring.data.dynamodb.repository.config.EnableDynamoDBRepositories;
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
 @Configuration
-@EnableDynamoDBRepositories(basePackages = "com.bancario.msdirectorio.repositorio", amazonDynamoDBRef = "amazonDynamoDB")
 public class DynamoDBConfig {
 
     @Value("${aws.region:us-east-2}")
     private String awsRegion;
 
+    // Peticiones simultáneas en vuelo sobre el event loop de Netty. Con hilos
+    // virtuales este pool, y no Tomcat, es el que limita la concurrencia.
+    @Value("${aws.dynamodb.max-conexiones:200}")
+    private int maxConexiones;
+
+    @Value("${aws.dynamodb.timeout-conexion-ms:1000}")
+    private int timeoutConexionMs;
+
+    @Value("${aws.dynamodb.timeout-peticion-ms:3000}")
+    private int timeoutPeticionMs;
+
+    @Bean(destroyMethod = "close")
+    public DynamoDbAsyncClient dynamoDbAsyncClient() {
+        return DynamoDbAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.builder().build())
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConexiones)
+                        .connectionTimeout(Duration.ofMillis(timeoutConexionMs))
+                        .connectionAcquisitionTimeout(Duration.ofMillis(timeoutPeticionMs))
+                        .tcpKeepAlive(true))
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .apiCallAttemptTimeout(Duration.ofMillis(timeoutPeticionMs))
+                        .apiCallTimeout(Duration.ofMillis(timeoutPeticionMs * 2L))
+                        .build())
+                .build();
+    }
+
     @Bean
-    public AmazonDynamoDB amazonDynamoDB() {
-        return AmazonDynamoDBClientBuilder.standard()
-                .withCredentials(DefaultAWSCredentialsProviderChain.getInstance())
-                .withRegion(Regions.fromName(awsRegion))
+    public DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+        return DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(dynamoDbAsyncClient)
                 .build();
     }
 }
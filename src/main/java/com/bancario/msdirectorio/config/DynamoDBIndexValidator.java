@@ -0,0 +1,60 @@
+package com.bancario.msdirectorio.config;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+
+import java.util.List;
+
+/**
+ * Verifica al arrancar que la tabla de instituciones tenga el GSI sobre codigoBic.
+ * Sin él, findByCodigoBic degenera en un scan completo, así que se aborta el
+ * arranque en lugar de servir con ese coste.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "directorio.dynamodb.verificar-indices", havingValue = "true", matchIfMissing = true)
+public class DynamoDBIndexValidator {
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    @PostConstruct
+    public void verificar() {
+        TableDescription tabla = dynamoDbAsyncClient.describeTable(b -> b.tableName(Institucion.TABLA)).join().table();
+        List<GlobalSecondaryIndexDescription> indices = tabla.globalSecondaryIndexes();
+
+        GlobalSecondaryIndexDescription indice = indices.stream()
+                .filter(i -> Institucion.INDICE_BIC.equals(i.indexName()))
+                .findFirst()
+                .orElse(null);
+
+        if (indice == null) {
+            throw new IllegalStateException("Falta el índice " + Institucion.INDICE_BIC + " en la tabla "
+                    + Institucion.TABLA + " (GSI con hash key codigoBic y proyección ALL)");
+        }
+
+        boolean hashKeyBic = indice.keySchema().stream()
+                .anyMatch(k -> k.keyType() == KeyType.HASH && "codigoBic".equals(k.attributeName()));
+        if (!hashKeyBic) {
+            throw new IllegalStateException("El índice " + Institucion.INDICE_BIC + " debe usar codigoBic como hash key: "
+                    + indice.keySchema().stream().map(KeySchemaElement::attributeName).toList());
+        }
+
+        if (indice.projection().projectionType() != ProjectionType.ALL) {
+            throw new IllegalStateException("El índice " + Institucion.INDICE_BIC + " debe proyectar todos los atributos (ALL)");
+        }
+
+        log.info("Índice {} verificado en {} (estado {})", Institucion.INDICE_BIC, Institucion.TABLA,
+                indice.indexStatus());
+    }
+}
@@ -0,0 +1,217 @@
+package com.bancario.msdirectorio.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitador adaptativo de concurrencia (estilo gradiente): el límite de
+ * peticiones en vuelo se ajusta con la latencia observada. Si la latencia
+ * reciente supera a la de referencia, el límite baja; si no, crece en
+ * √límite. Cada prioridad solo entra mientras haya hueco por debajo de su
+ * fracción del límite, de modo que el lookup y los reportes del switch conservan
+ * capacidad cuando el listado y las escrituras de administración se descartan.
+ * Lo descartado recibe un 503 inmediato con Retry-After.
+ */
+@Slf4j
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class LimitadorConcurrenciaFilter implements Filter {
+
+    // Ventanas de muestreo que promedia la latencia de referencia.
+    private static final double VENTANAS_REFERENCIA = 600;
+    // Latencia reciente admitida sobre la de referencia antes de reducir el límite.
+    private static final double TOLERANCIA = 1.5;
+    private static final double SUAVIZADO = 0.2;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${directorio.limitador.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${directorio.limitador.limite-inicial:200}")
+    private int limiteInicial;
+
+    @Value("${directorio.limitador.limite-min:20}")
+    private int limiteMin;
+
+    @Value("${directorio.limitador.limite-max:2000}")
+    private int limiteMax;
+
+    @Value("${directorio.limitador.ventana-ms:100}")
+    private long ventanaMs;
+
+    @Value("${directorio.limitador.retry-after-segundos:1}")
+    private int retryAfterSegundos;
+
+    private final AtomicInteger enVuelo = new AtomicInteger();
+    private final AtomicInteger maxEnVuelo = new AtomicInteger();
+    private final LongAdder muestras = new LongAdder();
+    private final LongAdder sumaRttNs = new LongAdder();
+    private final AtomicLong siguienteAjusteNs = new AtomicLong();
+    private final Map<Prioridad, Counter> rechazos = new EnumMap<>(Prioridad.class);
+
+    private volatile double limite;
+    private double rttReferenciaNs;
+
+    enum Prioridad {
+        // Fracción del límite hasta la que se admite cada clase.
+        CRITICA(1.0), NORMAL(0.8), BAJA(0.5);
+
+        private final double fraccion;
+
+        Prioridad(double fraccion) {
+            this.fraccion = fraccion;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        limite = limiteInicial;
+        for (Prioridad prioridad : Prioridad.values()) {
+            rechazos.put(prioridad, meterRegistry.counter("directorio.limitador.rechazos",
+                    "prioridad", prioridad.name().toLowerCase()));
+        }
+        meterRegistry.gauge("directorio.limitador.limite", this, f -> f.limite);
+        meterRegistry.gauge("directorio.limitador.en_vuelo", enVuelo);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        Prioridad prioridad = clasificar(httpRequest);
+        if (!habilitado || prioridad == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        int actual = enVuelo.incrementAndGet();
+        if (actual > limite * prioridad.fraccion) {
+            enVuelo.decrementAndGet();
+            rechazos.get(prioridad).increment();
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            httpResponse.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSegundos));
+            httpResponse.setContentType("application/json");
+            httpResponse.getWriter().write("{\"error\":\"Service Unavailable\",\"message\":\"Sobrecarga, reintente\"}");
+            return;
+        }
+        maxEnVuelo.accumulateAndGet(actual, Math::max);
+
+        long inicio = System.nanoTime();
+        boolean completada = false;
+        try {
+            chain.doFilter(request, response);
+            completada = true;
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Respuesta en streaming: la plaza se libera al terminar, pero su
+                // duración no es latencia del servicio y no se muestrea.
+                request.getAsyncContext().addListener(new Liberar());
+            } else {
+                enVuelo.decrementAndGet();
+                if (completada) {
+                    muestrear(System.nanoTime() - inicio);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code null} para lo que no se limita (actuator, documentación).
+     */
+    static Prioridad clasificar(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (!path.startsWith("/api/")) {
+            return null;
+        }
+        if (path.startsWith("/api/v1/lookup/") || path.endsWith("/reportar-fallo")
+                || path.startsWith("/api/v1/reportes/")) {
+            return Prioridad.CRITICA;
+        }
+        return "GET".equals(request.getMethod()) ? Prioridad.NORMAL : Prioridad.BAJA;
+    }
+
+    private void muestrear(long rttNs) {
+        muestras.increment();
+        sumaRttNs.add(rttNs);
+        long ahora = System.nanoTime();
+        long siguiente = siguienteAjusteNs.get();
+        if (ahora - siguiente >= 0 && siguienteAjusteNs.compareAndSet(siguiente, ahora + ventanaMs * 1_000_000)) {
+            ajustar();
+        }
+    }
+
+    /**
+     * Un ajuste por ventana, en el hilo que la cierra. La referencia es una media
+     * lenta de la latencia; si cae muy por debajo de la reciente (cambio
+     * sostenido de carga), se deja decaer para no quedar anclada.
+     */
+    private synchronized void ajustar() {
+        long n = muestras.sumThenReset();
+        long suma = sumaRttNs.sumThenReset();
+        int pico = maxEnVuelo.getAndSet(0);
+        if (n == 0) {
+            return;
+        }
+        double reciente = (double) suma / n;
+        rttReferenciaNs = rttReferenciaNs == 0 ? reciente
+                : rttReferenciaNs + (reciente - rttReferenciaNs) / VENTANAS_REFERENCIA;
+        if (rttReferenciaNs / reciente > 2) {
+            rttReferenciaNs *= 0.95;
+        }
+
+        double gradiente = Math.max(0.5, Math.min(1.0, TOLERANCIA * rttReferenciaNs / reciente));
+        double actual = limite;
+        if (gradiente == 1.0 && pico < actual / 2) {
+            // Sin presión: no se hace crecer un límite que no se está usando.
+            return;
+        }
+        double objetivo = actual * gradiente + Math.sqrt(actual);
+        double nuevo = Math.max(limiteMin, Math.min(limiteMax, actual * (1 - SUAVIZADO) + objetivo * SUAVIZADO));
+        if ((int) nuevo != (int) actual) {
+            log.debug("Límite de concurrencia {} -> {} (latencia {} us, referencia {} us)", (int) actual, (int) nuevo,
+                    (long) reciente / 1000, (long) rttReferenciaNs / 1000);
+        }
+        limite = nuevo;
+    }
+
+    private final class Liberar implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            enVuelo.decrementAndGet();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
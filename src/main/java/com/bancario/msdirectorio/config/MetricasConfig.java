@@ -0,0 +1,40 @@
+package com.bancario.msdirectorio.config;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+@Configuration
+public class MetricasConfig {
+
+    private static final String URI_LOOKUP = "/api/v1/lookup/";
+
+    /**
+     * Histograma de percentiles solo para la latencia HTTP de /lookup, que es la
+     * ruta crítica del switch; el resto de endpoints queda con los buckets por
+     * defecto para no inflar la cardinalidad.
+     */
+    @Bean
+    public MeterFilter histogramaLookup() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String uri = id.getTag("uri");
+                if (!"http.server.requests".equals(id.getName()) || uri == null || !uri.startsWith(URI_LOOKUP)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(5).toNanos())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -1,14 +1,36 @@
 package com.bancario.msdirectorio.config;
 
+import com.bancario.msdirectorio.converter.RutaLookupCodec;
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+
 @Configuration
-public class RedisConfig {
+public class RedisConfig implements DisposableBean {
+
+    // Conexión propia de la cache de lookups, con timeouts cortos: un Redis
+    // degradado cuesta milisegundos por lookup y no los 5 s del resto de usos.
+    @Value("${directorio.cache.redis.timeout-ms:50}")
+    private long timeoutLookupMs;
+
+    private LettuceConnectionFactory conexionLookup;
 
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
@@ -24,4 +46,48 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * Plantilla de la cache de lookups: valores en binario compacto en lugar de
+     * JSON con metadatos de tipo, sobre su propia conexión con timeouts de
+     * conexión y de comando de {@code directorio.cache.redis.timeout-ms}.
+     */
+    @Bean
+    public RedisTemplate<String, InstitucionDTO> lookupRedisTemplate(RedisProperties propiedades) {
+        RedisStandaloneConfiguration servidor = new RedisStandaloneConfiguration(propiedades.getHost(),
+                propiedades.getPort());
+        servidor.setDatabase(propiedades.getDatabase());
+        servidor.setUsername(propiedades.getUsername());
+        if (propiedades.getPassword() != null) {
+            servidor.setPassword(propiedades.getPassword());
+        }
+        Duration timeout = Duration.ofMillis(timeoutLookupMs);
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder cliente = LettuceClientConfiguration.builder()
+                .commandTimeout(timeout)
+                .shutdownTimeout(Duration.ZERO)
+                .clientOptions(ClientOptions.builder()
+                        .socketOptions(SocketOptions.builder().connectTimeout(timeout).build())
+                        .timeoutOptions(TimeoutOptions.enabled(timeout))
+                        .build());
+        if (propiedades.getSsl().isEnabled()) {
+            cliente.useSsl();
+        }
+        conexionLookup = new LettuceConnectionFactory(servidor, cliente.build());
+        conexionLookup.afterPropertiesSet();
+        conexionLookup.start();
+
+        RedisTemplate<String, InstitucionDTO> template = new RedisTemplate<>();
+        template.setConnectionFactory(conexionLookup);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new RutaLookupCodec());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    @Override
+    public void destroy() {
+        if (conexionLookup != null) {
+            conexionLookup.destroy();
+        }
+    }
+}
@@ -1,15 +1,33 @@
 package com.bancario.msdirectorio.controlador;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.bancario.msdirectorio.dto.AcuseReglasDTO;
+import com.bancario.msdirectorio.dto.AcuseReportesDTO;
+import com.bancario.msdirectorio.dto.CambioDirectorioDTO;
 import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.bancario.msdirectorio.dto.ReporteResultadoDTO;
+import com.bancario.msdirectorio.dto.ResultadoLookupDTO;
 import com.bancario.msdirectorio.servicio.DirectorioServicio;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 
@@ -21,6 +39,7 @@ import lombok.RequiredArgsConstructor;
 public class InstitucionControlador {
 
     private final DirectorioServicio directorioServicio;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "Registrar o actualizar un participante (Incluye Datos Técnicos e Interruptor)")
     @PostMapping("/instituciones")
@@ -29,10 +48,23 @@ public class InstitucionControlador {
         return new ResponseEntity<>(guardada, HttpStatus.CREATED);
     }
 
-    @Operation(summary = "Listar directorio completo")
+    @Operation(summary = "Listar directorio completo (soporta ETag/If-None-Match y gzip; "
+            + "NDJSON en streaming con Accept: application/x-ndjson o paginado con limit/cursor)")
+    @ApiResponse(responseCode = "200", content = {
+            @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = InstitucionDTO.class))),
+            @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = InstitucionDTO.class)) })
     @GetMapping("/instituciones")
-    public ResponseEntity<List<InstitucionDTO>> listar() {
-        return ResponseEntity.ok(directorioServicio.listarTodas());
+    public ResponseEntity<StreamingResponseBody> listar(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (RespuestaStreaming.solicitado(accept, cursor, limit)) {
+            return RespuestaStreaming.responder(directorioServicio, objectMapper, cursor, limit);
+        }
+        return RespuestaSnapshot.responder(directorioServicio.obtenerSnapshot(), ifNoneMatch, acceptEncoding);
     }
 
     @Operation(summary = "Obtener detalle de un banco por su BIC (_id)")
@@ -51,19 +83,60 @@ public class InstitucionControlador {
         return ResponseEntity.ok(actualizada);
     }
 
+    @Operation(summary = "Añadir reglas de BIN en lote (onboarding); responde cuando están persistidas")
+    @PostMapping("/instituciones/{bic}/reglas/lote")
+    public ResponseEntity<AcuseReglasDTO> agregarReglas(@PathVariable String bic,
+            @RequestBody List<InstitucionDTO.ReglaDTO> reglas) {
+        return ResponseEntity.ok(directorioServicio.aniadirReglas(bic, reglas));
+    }
+
     @Operation(summary = "LOOKUP: Descubrir destino por BIN (Lógica central del Switch)")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            schema = @Schema(implementation = InstitucionDTO.class)))
     @GetMapping("/lookup/{bin}")
-    public ResponseEntity<InstitucionDTO> lookup(@PathVariable String bin) {
-        return directorioServicio.descubrirBancoPorBin(bin)
-                .map(inst -> {
-                    if (inst.getInterruptorCircuito() != null && inst.getInterruptorCircuito().isEstaAbierto()) {
-                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(inst);
-                    }
-                    return ResponseEntity.ok(inst);
-                })
+    public ResponseEntity<byte[]> lookup(@PathVariable String bin) {
+        // Solo se resuelven bancos disponibles; el cuerpo llega ya serializado.
+        return directorioServicio.descubrirRutaSerializada(bin)
+                .map(json -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "LOOKUP en lote: Resolver muchos BINs en una sola petición (liquidaciones, transferencias masivas)")
+    @PostMapping("/lookup/batch")
+    public ResponseEntity<StreamingResponseBody> lookupLote(@RequestBody List<String> bins) {
+        directorioServicio.validarLoteLookup(bins);
+
+        // Cada tramo se escribe y se vacía al cliente en cuanto se resuelve.
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+                generador.writeStartArray();
+                directorioServicio.descubrirBancosPorBin(bins, (tramo, resueltos) -> escribir(generador, tramo, resueltos));
+                generador.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
+    }
+
+    private static void escribir(JsonGenerator generador, List<String> bins, Map<String, InstitucionDTO> resueltos) {
+        try {
+            for (String bin : bins) {
+                InstitucionDTO inst = resueltos.get(bin);
+                generador.writeObject(new ResultadoLookupDTO(bin, inst != null, inst));
+            }
+            generador.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Operation(summary = "SYNC: Cambios del directorio desde una versión (réplica local en los nodos del switch)")
+    @GetMapping("/directorio/cambios")
+    public ResponseEntity<CambioDirectorioDTO.LoteDTO> cambios(@RequestParam(defaultValue = "0") long desde) {
+        return directorioServicio.cambiosDesde(desde)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
     @Operation(summary = "REPORT: Registrar fallo técnico para control de Circuit Breaker")
     @PostMapping("/instituciones/{bic}/reportar-fallo")
     public ResponseEntity<Void> reportarFallo(@PathVariable String bic) {
@@ -71,6 +144,17 @@ public class InstitucionControlador {
         return ResponseEntity.ok().build();
     }
 
+    @Operation(summary = "REPORT: Resultados del switch en lote (éxitos y fallos); se encolan y aplican en segundo plano")
+    @PostMapping("/reportes/lote")
+    public ResponseEntity<AcuseReportesDTO> reportarResultados(@RequestBody List<ReporteResultadoDTO> reportes) {
+        AcuseReportesDTO acuse = directorioServicio.reportarResultados(reportes);
+        if (acuse.getAceptados() == 0 && acuse.getDescartados() > 0) {
+            // Cola llena: que el switch reintente en lugar de perder el lote en silencio.
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(acuse);
+        }
+        return ResponseEntity.accepted().body(acuse);
+    }
+
     @Operation(summary = "RF-02: Actualización técnica restringida (Estado y API Key)")
     @PatchMapping("/instituciones/{bic}/operaciones")
     public ResponseEntity<InstitucionDTO> actualizarOperaciones(
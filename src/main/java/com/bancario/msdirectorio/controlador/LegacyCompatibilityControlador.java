@@ -2,14 +2,21 @@ package com.bancario.msdirectorio.controlador;
 
 import com.bancario.msdirectorio.dto.InstitucionDTO;
 import com.bancario.msdirectorio.servicio.DirectorioServicio;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controlador para mantener compatibilidad con rutas legacy requeridas por el
@@ -21,6 +28,7 @@ import java.util.List;
 public class LegacyCompatibilityControlador {
 
     private final DirectorioServicio directorioServicio;
+    private final ObjectMapper objectMapper;
 
     /**
      * GET /api/v1/red/bancos
@@ -29,7 +37,19 @@ public class LegacyCompatibilityControlador {
      */
     @GetMapping("/api/v1/red/bancos")
     @Operation(summary = "Listar Bancos (Legacy Alias)", description = "Alias para /api/v1/instituciones")
-    public ResponseEntity<List<InstitucionDTO>> listarBancosAlias() {
-        return ResponseEntity.ok(directorioServicio.listarTodas());
+    @ApiResponse(responseCode = "200", content = {
+            @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = InstitucionDTO.class))),
+            @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = InstitucionDTO.class)) })
+    public ResponseEntity<StreamingResponseBody> listarBancosAlias(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (RespuestaStreaming.solicitado(accept, cursor, limit)) {
+            return RespuestaStreaming.responder(directorioServicio, objectMapper, cursor, limit);
+        }
+        return RespuestaSnapshot.responder(directorioServicio.obtenerSnapshot(), ifNoneMatch, acceptEncoding);
     }
 }
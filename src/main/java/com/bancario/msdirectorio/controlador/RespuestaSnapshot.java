@@ -0,0 +1,122 @@
+package com.bancario.msdirectorio.controlador;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.bancario.msdirectorio.servicio.SnapshotDirectorio.Snapshot;
+
+/**
+ * Respuesta HTTP del snapshot del directorio: 304 si el cliente ya tiene la
+ * versión (If-None-Match) y gzip precomputado si lo acepta. El ETag es fuerte,
+ * así que cada codificación lleva el suyo: el de gzip añade {@code -gzip} al
+ * del JSON, y cualquiera de los dos valida la misma versión.
+ */
+final class RespuestaSnapshot {
+
+    static final String SUFIJO_GZIP = "-gzip";
+
+    private RespuestaSnapshot() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> responder(Snapshot snapshot, String ifNoneMatch,
+            String acceptEncoding) {
+        boolean gzip = aceptaGzip(acceptEncoding);
+        String etag = gzip ? etagGzip(snapshot.etag()) : snapshot.etag();
+        if (coincide(ifNoneMatch, snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        if (gzip) {
+            return respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(bytes(respuesta, snapshot.gzip()));
+        }
+        return respuesta.body(bytes(respuesta, snapshot.json()));
+    }
+
+    /**
+     * {@code "abc"} pasa a {@code "abc-gzip"}, dentro de las comillas.
+     */
+    static String etagGzip(String etag) {
+        return etag.substring(0, etag.length() - 1) + SUFIJO_GZIP + "\"";
+    }
+
+    /**
+     * El snapshot comparte firma con el listado en streaming
+     * ({@link RespuestaStreaming}); se escribe tal cual, con su longitud.
+     */
+    private static StreamingResponseBody bytes(ResponseEntity.BodyBuilder respuesta, byte[] cuerpo) {
+        respuesta.contentLength(cuerpo.length);
+        return salida -> salida.write(cuerpo);
+    }
+
+    /**
+     * gzip (o x-gzip) con q mayor que 0; si no aparece, vale un {@code *} con q
+     * mayor que 0. {@code gzip;q=0} lo rechaza expresamente, y una q mal formada
+     * cuenta como 0.
+     */
+    static boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double comodin = null;
+        for (String codificacion : acceptEncoding.split(",")) {
+            String[] partes = codificacion.split(";");
+            String nombre = partes[0].trim().toLowerCase();
+            double q = 1.0;
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim();
+                if (parametro.regionMatches(true, 0, "q=", 0, 2)) {
+                    q = calidad(parametro.substring(2).trim());
+                }
+            }
+            if (nombre.equals("gzip") || nombre.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (nombre.equals("*")) {
+                comodin = q;
+            }
+        }
+        Double q = gzip != null ? gzip : comodin;
+        return q != null && q > 0;
+    }
+
+    private static double calidad(String valor) {
+        try {
+            double q = Double.parseDouble(valor);
+            return q >= 0 && q <= 1 ? q : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Compara con el ETag del JSON; el de gzip vale igual porque es la misma
+     * versión en otra codificación.
+     */
+    static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String etagGzip = etagGzip(etag);
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag) || valor.equals(etagGzip)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
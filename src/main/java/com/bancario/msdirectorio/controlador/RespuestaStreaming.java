@@ -0,0 +1,76 @@
+package com.bancario.msdirectorio.controlador;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.bancario.msdirectorio.servicio.DirectorioServicio;
+import com.bancario.msdirectorio.servicio.DirectorioServicio.PaginaDirectorio;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Listado del directorio en NDJSON (una institución por línea) escrito según
+ * llegan las páginas del scan. Con {@code limit} se devuelve una sola página y
+ * el cursor de la siguiente va en {@value #CABECERA_CURSOR}.
+ */
+final class RespuestaStreaming {
+
+    static final String CABECERA_CURSOR = "X-Cursor-Siguiente";
+    private static final int LIMITE_POR_DEFECTO = 100;
+
+    private RespuestaStreaming() {
+    }
+
+    /**
+     * Se usa el listado en streaming si el cliente pagina o pide NDJSON; si no,
+     * se sirve el snapshot con ETag.
+     */
+    static boolean solicitado(String accept, String cursor, Integer limit) {
+        return limit != null || cursor != null
+                || (accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE));
+    }
+
+    static ResponseEntity<StreamingResponseBody> responder(DirectorioServicio servicio, ObjectMapper objectMapper,
+            String cursor, Integer limit) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+
+        if (limit == null && cursor == null) {
+            return respuesta.body(salida -> {
+                JsonGenerator generador = generador(objectMapper, salida);
+                servicio.recorrerDirectorio(pagina -> escribir(generador, pagina));
+            });
+        }
+
+        PaginaDirectorio pagina = servicio.paginaDirectorio(cursor, limit == null ? LIMITE_POR_DEFECTO : limit);
+        if (pagina.cursor() != null) {
+            respuesta.header(CABECERA_CURSOR, pagina.cursor());
+        }
+        return respuesta.body(salida -> escribir(generador(objectMapper, salida), pagina.instituciones()));
+    }
+
+    private static JsonGenerator generador(ObjectMapper objectMapper, OutputStream salida) throws IOException {
+        return objectMapper.getFactory().createGenerator(salida).setRootValueSeparator(null);
+    }
+
+    /**
+     * Escribe una página y la vacía al cliente antes de pedir la siguiente.
+     */
+    private static void escribir(JsonGenerator generador, List<InstitucionDTO> instituciones) {
+        try {
+            for (InstitucionDTO inst : instituciones) {
+                generador.writeObject(inst);
+                generador.writeRaw('\n');
+            }
+            generador.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
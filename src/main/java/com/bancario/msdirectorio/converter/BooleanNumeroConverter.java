@@ -0,0 +1,37 @@
+package com.bancario.msdirectorio.converter;
+
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Booleanos como N (1/0), el formato que dejó el mapper del SDK v1 en los ítems
+ * existentes y que usan las expresiones de InterruptorCircuitoRepositorio.
+ * También lee atributos BOOL.
+ */
+public class BooleanNumeroConverter implements AttributeConverter<Boolean> {
+
+    @Override
+    public AttributeValue transformFrom(Boolean input) {
+        return AttributeValue.fromN(Boolean.TRUE.equals(input) ? "1" : "0");
+    }
+
+    @Override
+    public Boolean transformTo(AttributeValue input) {
+        if (input.bool() != null) {
+            return input.bool();
+        }
+        return input.n() != null && !"0".equals(input.n());
+    }
+
+    @Override
+    public EnhancedType<Boolean> type() {
+        return EnhancedType.of(Boolean.class);
+    }
+
+    @Override
+    public AttributeValueType attributeValueType() {
+        return AttributeValueType.N;
+    }
+}
@@ -1,20 +1,42 @@
 package com.bancario.msdirectorio.converter;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
-public class LocalDateTimeConverter implements DynamoDBTypeConverter<String, LocalDateTime> {
+public class LocalDateTimeConverter implements AttributeConverter<LocalDateTime> {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
-    @Override
     public String convert(LocalDateTime object) {
         return object != null ? object.format(FORMATTER) : null;
     }
 
-    @Override
     public LocalDateTime unconvert(String object) {
         return object != null && !object.isEmpty() ? LocalDateTime.parse(object, FORMATTER) : null;
     }
+
+    @Override
+    public AttributeValue transformFrom(LocalDateTime input) {
+        return AttributeValue.fromS(convert(input));
+    }
+
+    @Override
+    public LocalDateTime transformTo(AttributeValue input) {
+        return unconvert(input.s());
+    }
+
+    @Override
+    public EnhancedType<LocalDateTime> type() {
+        return EnhancedType.of(LocalDateTime.class);
+    }
+
+    @Override
+    public AttributeValueType attributeValueType() {
+        return AttributeValueType.S;
+    }
 }
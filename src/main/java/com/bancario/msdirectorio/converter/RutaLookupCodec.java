@@ -0,0 +1,103 @@
+package com.bancario.msdirectorio.converter;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+
+/**
+ * Codec binario de la proyección de enrutamiento guardada en las claves
+ * {@code lookup:bin:}. Formato v1:
+ * <pre>
+ * versión (1 byte) | flags (1 byte) | fallosConsecutivos (int)
+ * | id | codigoBic | nombre | urlDestino | llavePublica | estadoOperativo | ultimoFallo
+ * </pre>
+ * Cada texto es su longitud en UTF-8 (int, -1 si es nulo) seguida de los
+ * bytes. Un valor con otra versión, p. ej. el JSON que se guardaba antes, se lee
+ * como {@code null} y el lookup lo trata como un fallo de cache; igual que uno
+ * truncado o con longitudes corruptas.
+ */
+public class RutaLookupCodec implements RedisSerializer<InstitucionDTO> {
+
+    private static final byte VERSION = 1;
+    private static final int CON_INTERRUPTOR = 1;
+    private static final int ABIERTO = 1 << 1;
+
+    @Override
+    public byte[] serialize(InstitucionDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        InstitucionDTO.CircuitBreakerDTO cb = dto.getInterruptorCircuito();
+        byte[][] textos = {
+                utf8(dto.getId()), utf8(dto.getCodigoBic()), utf8(dto.getNombre()), utf8(dto.getUrlDestino()),
+                utf8(dto.getLlavePublica()), utf8(dto.getEstadoOperativo()), utf8(cb == null ? null : cb.getUltimoFallo())
+        };
+        int tamano = 2 + Integer.BYTES;
+        for (byte[] texto : textos) {
+            tamano += Integer.BYTES + (texto == null ? 0 : texto.length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(tamano)
+                .put(VERSION)
+                .put((byte) (cb == null ? 0 : CON_INTERRUPTOR | (cb.isEstaAbierto() ? ABIERTO : 0)))
+                .putInt(cb == null ? 0 : cb.getFallosConsecutivos());
+        for (byte[] texto : textos) {
+            if (texto == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(texto.length).put(texto);
+            }
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public InstitucionDTO deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length < 2 + Integer.BYTES || bytes[0] != VERSION) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+            int flags = buffer.get();
+            int fallos = buffer.getInt();
+
+            InstitucionDTO dto = InstitucionDTO.builder()
+                    .id(leer(buffer))
+                    .codigoBic(leer(buffer))
+                    .nombre(leer(buffer))
+                    .urlDestino(leer(buffer))
+                    .llavePublica(leer(buffer))
+                    .estadoOperativo(leer(buffer))
+                    .build();
+            String ultimoFallo = leer(buffer);
+            if ((flags & CON_INTERRUPTOR) != 0) {
+                dto.setInterruptorCircuito(
+                        new InstitucionDTO.CircuitBreakerDTO((flags & ABIERTO) != 0, fallos, ultimoFallo));
+            }
+            return dto;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static byte[] utf8(String texto) {
+        return texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String leer(ByteBuffer buffer) {
+        int longitud = buffer.getInt();
+        if (longitud == -1) {
+            return null;
+        }
+        if (longitud < 0 || longitud > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String texto = new String(buffer.array(), buffer.position(), longitud, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + longitud);
+        return texto;
+    }
+}
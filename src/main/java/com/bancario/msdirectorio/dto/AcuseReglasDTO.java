@@ -0,0 +1,20 @@
+package com.bancario.msdirectorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Confirmación de un alta masiva de reglas: se devuelve cuando DynamoDB ya
+ * aceptó todas las escrituras.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AcuseReglasDTO {
+    private String codigoBic;
+    private int reglasAnadidas;
+    private int totalReglas;
+}
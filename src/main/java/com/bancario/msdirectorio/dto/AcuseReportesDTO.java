@@ -0,0 +1,21 @@
+package com.bancario.msdirectorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta a un lote de reportes: cuántos quedaron encolados, cuántos se
+ * descartaron por tener la cola llena (el switch puede reintentarlos) y cuántos
+ * venían incompletos, sin bic o resultado (no tiene sentido reintentarlos).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AcuseReportesDTO {
+    private int aceptados;
+    private int descartados;
+    private int invalidos;
+}
@@ -0,0 +1,41 @@
+package com.bancario.msdirectorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioDirectorioDTO {
+    private long version;
+    private String tipo;
+    private String codigoBic;
+    private InstitucionDTO institucion;
+
+    public enum Tipo {
+        REGISTRO,
+        REGLA,
+        PARAMETROS,
+        INTERRUPTOR
+    }
+
+    /**
+     * Respuesta de /directorio/cambios. Si {@code completo} es true el cliente
+     * debe reemplazar su réplica con {@code instituciones}; si no, aplicar
+     * {@code cambios} en orden.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class LoteDTO {
+        private long version;
+        private boolean completo;
+        private List<CambioDirectorioDTO> cambios;
+        private List<InstitucionDTO> instituciones;
+    }
+}
@@ -0,0 +1,23 @@
+package com.bancario.msdirectorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una operación del switch contra un banco destino.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReporteResultadoDTO {
+    private String bic;
+    private Resultado resultado;
+    private Long latenciaMs;
+
+    public enum Resultado {
+        EXITO, FALLO
+    }
+}
@@ -0,0 +1,16 @@
+package com.bancario.msdirectorio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLookupDTO {
+    private String bin;
+    private boolean encontrado;
+    private InstitucionDTO institucion;
+}
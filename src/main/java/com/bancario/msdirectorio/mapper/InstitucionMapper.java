@@ -28,6 +28,25 @@ public class InstitucionMapper {
                 .build();
     }
 
+    /**
+     * Proyección de enrutamiento para lookups: la institución sin su lista de
+     * reglas, que es lo que más pesa y no hace falta para enrutar.
+     */
+    public InstitucionDTO toRutaDTO(Institucion entity) {
+        if (entity == null)
+            return null;
+
+        return InstitucionDTO.builder()
+                .id(entity.getId())
+                .codigoBic(entity.getCodigoBic())
+                .nombre(entity.getNombre())
+                .urlDestino(entity.getUrlDestino())
+                .llavePublica(entity.getLlavePublica())
+                .estadoOperativo(entity.getEstadoOperativo())
+                .interruptorCircuito(mapCBToDTO(entity.getInterruptorCircuito()))
+                .build();
+    }
+
     public Institucion toEntity(InstitucionDTO dto) {
         if (dto == null)
             return null;
@@ -2,43 +2,31 @@ package com.bancario.msdirectorio.modelo;
 
 import java.util.List;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.*;
-
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-@DynamoDBTable(tableName = "switch-directorio-instituciones")
+/**
+ * Ítem de la tabla switch-directorio-instituciones. El mapeo a atributos de
+ * DynamoDB está en {@code EsquemaInstitucion}.
+ */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Institucion {
 
-    @DynamoDBHashKey(attributeName = "institucion_id")
-    @DynamoDBAutoGeneratedKey
-    private String id;
+    public static final String TABLA = "switch-directorio-instituciones";
+    public static final String INDICE_BIC = "codigoBic-index";
 
-    @DynamoDBAttribute(attributeName = "codigoBic")
+    private String id;
     private String codigoBic;
-
-    @DynamoDBAttribute(attributeName = "nombre")
     private String nombre;
-
-    @DynamoDBAttribute(attributeName = "urlDestino")
     private String urlDestino;
-
-    @DynamoDBAttribute(attributeName = "llavePublica")
     private String llavePublica;
-
-    @DynamoDBAttribute(attributeName = "estadoOperativo")
     private String estadoOperativo;
-
-    @DynamoDBAttribute(attributeName = "reglasEnrutamiento")
     private List<ReglaEnrutamiento> reglasEnrutamiento;
-
-    @DynamoDBAttribute(attributeName = "interruptorCircuito")
     private InterruptorCircuito interruptorCircuito;
 
     public enum Estado {
@@ -1,23 +1,15 @@
 package com.bancario.msdirectorio.modelo;
 
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBDocument;
-
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-@DynamoDBDocument
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class ReglaEnrutamiento {
-
-    @DynamoDBAttribute(attributeName = "prefijoBin")
     private String prefijoBin;
-
-    @DynamoDBAttribute(attributeName = "agente")
     private String agente;
 }
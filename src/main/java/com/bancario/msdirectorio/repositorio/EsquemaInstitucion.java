@@ -0,0 +1,84 @@
+package com.bancario.msdirectorio.repositorio;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+
+import java.time.LocalDateTime;
+
+import com.bancario.msdirectorio.converter.BooleanNumeroConverter;
+import com.bancario.msdirectorio.converter.LocalDateTimeConverter;
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.InterruptorCircuito;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+/**
+ * Esquemas estáticos (sin reflexión) de la tabla de instituciones. Se
+ * construyen una vez al cargar la clase y conservan los nombres y formatos de
+ * atributo que escribía el mapper del SDK v1.
+ */
+public final class EsquemaInstitucion {
+
+    private EsquemaInstitucion() {
+    }
+
+    static final TableSchema<ReglaEnrutamiento> REGLA = StaticTableSchema.builder(ReglaEnrutamiento.class)
+            .newItemSupplier(ReglaEnrutamiento::new)
+            .addAttribute(String.class, a -> a.name("prefijoBin")
+                    .getter(ReglaEnrutamiento::getPrefijoBin)
+                    .setter(ReglaEnrutamiento::setPrefijoBin))
+            .addAttribute(String.class, a -> a.name("agente")
+                    .getter(ReglaEnrutamiento::getAgente)
+                    .setter(ReglaEnrutamiento::setAgente))
+            .build();
+
+    static final TableSchema<InterruptorCircuito> INTERRUPTOR = StaticTableSchema.builder(InterruptorCircuito.class)
+            .newItemSupplier(InterruptorCircuito::new)
+            .addAttribute(Boolean.class, a -> a.name("estaAbierto")
+                    .getter(InterruptorCircuito::isEstaAbierto)
+                    .setter((i, v) -> i.setEstaAbierto(Boolean.TRUE.equals(v)))
+                    .attributeConverter(new BooleanNumeroConverter()))
+            .addAttribute(Integer.class, a -> a.name("fallosConsecutivos")
+                    .getter(InterruptorCircuito::getFallosConsecutivos)
+                    .setter((i, v) -> i.setFallosConsecutivos(v == null ? 0 : v)))
+            .addAttribute(LocalDateTime.class, a -> a.name("ultimoFallo")
+                    .getter(InterruptorCircuito::getUltimoFallo)
+                    .setter(InterruptorCircuito::setUltimoFallo)
+                    .attributeConverter(new LocalDateTimeConverter()))
+            .build();
+
+    public static final TableSchema<Institucion> INSTITUCION = StaticTableSchema.builder(Institucion.class)
+            .newItemSupplier(Institucion::new)
+            .addAttribute(String.class, a -> a.name("institucion_id")
+                    .getter(Institucion::getId)
+                    .setter(Institucion::setId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("codigoBic")
+                    .getter(Institucion::getCodigoBic)
+                    .setter(Institucion::setCodigoBic)
+                    .tags(secondaryPartitionKey(Institucion.INDICE_BIC)))
+            .addAttribute(String.class, a -> a.name("nombre")
+                    .getter(Institucion::getNombre)
+                    .setter(Institucion::setNombre))
+            .addAttribute(String.class, a -> a.name("urlDestino")
+                    .getter(Institucion::getUrlDestino)
+                    .setter(Institucion::setUrlDestino))
+            .addAttribute(String.class, a -> a.name("llavePublica")
+                    .getter(Institucion::getLlavePublica)
+                    .setter(Institucion::setLlavePublica))
+            .addAttribute(String.class, a -> a.name("estadoOperativo")
+                    .getter(Institucion::getEstadoOperativo)
+                    .setter(Institucion::setEstadoOperativo))
+            .addAttribute(EnhancedType.listOf(EnhancedType.documentOf(ReglaEnrutamiento.class, REGLA,
+                    d -> d.ignoreNulls(true))), a -> a.name("reglasEnrutamiento")
+                    .getter(Institucion::getReglasEnrutamiento)
+                    .setter(Institucion::setReglasEnrutamiento))
+            .addAttribute(EnhancedType.documentOf(InterruptorCircuito.class, INTERRUPTOR,
+                    d -> d.ignoreNulls(true)), a -> a.name("interruptorCircuito")
+                    .getter(Institucion::getInterruptorCircuito)
+                    .setter(Institucion::setInterruptorCircuito))
+            .build();
+}
@@ -0,0 +1,94 @@
+package com.bancario.msdirectorio.repositorio;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.stereotype.Repository;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+
+import lombok.RequiredArgsConstructor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Escrituras parciales del ítem de institución mediante UpdateItem: reglas
+ * añadidas con {@code list_append} y parámetros operativos con SET, sin leer ni
+ * reescribir el resto del ítem. Así dos escrituras sobre atributos distintos no
+ * se pisan. Completan con el ítem resultante (ALL_NEW).
+ */
+@Repository
+@RequiredArgsConstructor
+public class InstitucionParcialRepositorio {
+
+    private static final String HASH_KEY = "institucion_id";
+    private static final AttributeValue LISTA_VACIA = AttributeValue.fromL(List.of());
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    /**
+     * Añade {@code reglas} al final de {@code reglasEnrutamiento} en una sola
+     * escritura, solo si la lista tiene exactamente {@code previas} reglas: así
+     * repetir un tramo ya aplicado, o escribir sobre una lista que otro cambió
+     * entretanto, falla en lugar de duplicar reglas. Falla con
+     * ConditionalCheckFailedException si el ítem no existe o la lista no mide
+     * lo esperado.
+     */
+    public CompletableFuture<Institucion> anexarReglas(String id, List<ReglaEnrutamiento> reglas, int previas) {
+        List<AttributeValue> nuevas = reglas.stream()
+                .map(regla -> AttributeValue.fromM(EsquemaInstitucion.REGLA.itemToMap(regla, true)))
+                .toList();
+        String condicionLista = previas == 0
+                ? "(attribute_not_exists(reglasEnrutamiento) OR size(reglasEnrutamiento) = :previas)"
+                : "size(reglasEnrutamiento) = :previas";
+        return actualizar(UpdateItemRequest.builder()
+                .tableName(Institucion.TABLA)
+                .key(Map.of(HASH_KEY, AttributeValue.fromS(id)))
+                .conditionExpression("attribute_exists(" + HASH_KEY + ") AND " + condicionLista)
+                .updateExpression("SET reglasEnrutamiento = list_append(if_not_exists(reglasEnrutamiento, :vacia), :nuevas)")
+                .expressionAttributeValues(Map.of(
+                        ":vacia", LISTA_VACIA,
+                        ":nuevas", AttributeValue.fromL(nuevas),
+                        ":previas", AttributeValue.fromN(Integer.toString(previas))))
+                .returnValues(ReturnValue.ALL_NEW)
+                .build());
+    }
+
+    /**
+     * Cambia estado operativo y/o URL de destino; los valores {@code null} no se
+     * tocan, pero al menos uno debe venir informado.
+     */
+    public CompletableFuture<Institucion> actualizarParametros(String id, String estadoOperativo, String urlDestino) {
+        StringBuilder expresion = new StringBuilder("SET ");
+        Map<String, AttributeValue> valores = new HashMap<>();
+        if (estadoOperativo != null) {
+            expresion.append("estadoOperativo = :estado");
+            valores.put(":estado", AttributeValue.fromS(estadoOperativo));
+        }
+        if (urlDestino != null) {
+            expresion.append(valores.isEmpty() ? "" : ", ").append("urlDestino = :url");
+            valores.put(":url", AttributeValue.fromS(urlDestino));
+        }
+        if (valores.isEmpty()) {
+            throw new IllegalArgumentException("No hay parámetros que actualizar");
+        }
+        return actualizar(UpdateItemRequest.builder()
+                .tableName(Institucion.TABLA)
+                .key(Map.of(HASH_KEY, AttributeValue.fromS(id)))
+                .conditionExpression("attribute_exists(" + HASH_KEY + ")")
+                .updateExpression(expresion.toString())
+                .expressionAttributeValues(valores)
+                .returnValues(ReturnValue.ALL_NEW)
+                .build());
+    }
+
+    private CompletableFuture<Institucion> actualizar(UpdateItemRequest request) {
+        return dynamoDbAsyncClient.updateItem(request)
+                .thenApply(r -> EsquemaInstitucion.INSTITUCION.mapToItem(r.attributes()));
+    }
+}
@@ -1,16 +1,41 @@
 package com.bancario.msdirectorio.repositorio;
 
+import java.util.List;
 import java.util.Optional;
 
-import org.socialsignin.spring.data.dynamodb.repository.EnableScan;
 import org.springframework.data.repository.CrudRepository;
-import org.springframework.stereotype.Repository;
 
 import com.bancario.msdirectorio.modelo.Institucion;
 
-@Repository
-@EnableScan
+/**
+ * Contrato de acceso a la tabla de instituciones. La implementación es
+ * {@link InstitucionRepositorioDynamo}, sobre el cliente asíncrono del SDK v2.
+ */
 public interface InstitucionRepositorio extends CrudRepository<Institucion, String> {
 
     Optional<Institucion> findByCodigoBic(String codigoBic);
+
+    /**
+     * GetItem por clave con lectura fuerte: devuelve cualquier escritura ya
+     * confirmada, a diferencia de {@link #findByCodigoBic(String)}, que consulta
+     * un GSI de consistencia eventual.
+     */
+    Optional<Institucion> findByIdConsistente(String id);
+
+    /**
+     * Scan completo con lectura fuerte: incluye toda escritura confirmada antes
+     * de empezar.
+     */
+    List<Institucion> findAllConsistente();
+
+    /**
+     * Una página del scan que empieza después de {@code desdeId} ({@code null}
+     * para la primera) con como mucho {@code limite} ítems ({@code 0} deja el
+     * límite de 1 MB de DynamoDB). {@link Pagina#siguienteId()} es la
+     * LastEvaluatedKey, o {@code null} si no quedan páginas.
+     */
+    Pagina escanearPagina(String desdeId, int limite);
+
+    record Pagina(List<Institucion> instituciones, String siguienteId) {
+    }
 }
@@ -0,0 +1,304 @@
+package com.bancario.msdirectorio.repositorio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+
+/**
+ * Implementación de {@link InstitucionRepositorio} sobre el cliente asíncrono
+ * del SDK v2. Los métodos de {@code CrudRepository} conservan su contrato
+ * síncrono esperando el resultado (la E/S sigue siendo no bloqueante sobre
+ * Netty); las variantes {@code *Async} devuelven el future directamente.
+ */
+@Repository
+public class InstitucionRepositorioDynamo implements InstitucionRepositorio {
+
+    private static final String HASH_KEY = "institucion_id";
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final DynamoDbAsyncTable<Institucion> tabla;
+    private final DynamoDbAsyncIndex<Institucion> indiceBic;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary escaneadosScan;
+    private final DistributionSummary escaneadosQuery;
+
+    @Value("${directorio.dynamodb.scan.segmentos:1}")
+    private int segmentos;
+
+    @Value("${directorio.dynamodb.scan.tamano-pagina:0}")
+    private int tamanoPagina;
+
+    public InstitucionRepositorioDynamo(DynamoDbEnhancedAsyncClient enhancedClient,
+            DynamoDbAsyncClient dynamoDbAsyncClient, MeterRegistry meterRegistry) {
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+        this.tabla = enhancedClient.table(Institucion.TABLA, EsquemaInstitucion.INSTITUCION);
+        this.indiceBic = tabla.index(Institucion.INDICE_BIC);
+        this.meterRegistry = meterRegistry;
+        this.escaneadosScan = itemsEscaneados("scan");
+        this.escaneadosQuery = itemsEscaneados("query");
+    }
+
+    public CompletableFuture<Optional<Institucion>> findByCodigoBicAsync(String codigoBic) {
+        contar("query");
+        CompletableFuture<Optional<Institucion>> resultado = new CompletableFuture<>();
+        // Una sola página de un ítem: el GSI no es único, pero el BIC sí lo es.
+        indiceBic.query(q -> q.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(codigoBic)))
+                .limit(1))
+                .limit(1)
+                .subscribe(pagina -> {
+                    escaneadosQuery.record(pagina.scannedCount() == null ? 0 : pagina.scannedCount());
+                    resultado.complete(pagina.items().stream().findFirst());
+                })
+                .whenComplete((v, e) -> {
+                    if (e != null) {
+                        resultado.completeExceptionally(e);
+                    } else {
+                        resultado.complete(Optional.empty());
+                    }
+                });
+        return resultado;
+    }
+
+    /**
+     * Scan completo. Con {@code directorio.dynamodb.scan.segmentos} mayor que 1
+     * la tabla se lee en segmentos paralelos ({@code Segment}/{@code TotalSegments}),
+     * todos en vuelo a la vez sobre el cliente asíncrono; el resultado se une en
+     * orden de segmento para que sea estable entre lecturas.
+     */
+    public CompletableFuture<List<Institucion>> findAllAsync() {
+        return escanear(false);
+    }
+
+    public CompletableFuture<List<Institucion>> findAllConsistenteAsync() {
+        return escanear(true);
+    }
+
+    private CompletableFuture<List<Institucion>> escanear(boolean consistente) {
+        contar("scan");
+        int total = Math.max(1, segmentos);
+        AtomicLong escaneados = new AtomicLong();
+        List<CompletableFuture<List<Institucion>>> partes = new ArrayList<>(total);
+        for (int segmento = 0; segmento < total; segmento++) {
+            partes.add(escanearSegmento(segmento, total, consistente, escaneados));
+        }
+        return CompletableFuture.allOf(partes.toArray(CompletableFuture[]::new))
+                .thenApply(v -> {
+                    escaneadosScan.record(escaneados.get());
+                    List<Institucion> instituciones = new ArrayList<>();
+                    partes.forEach(parte -> instituciones.addAll(parte.join()));
+                    return instituciones;
+                });
+    }
+
+    private CompletableFuture<List<Institucion>> escanearSegmento(int segmento, int total, boolean consistente,
+            AtomicLong escaneados) {
+        ScanEnhancedRequest.Builder peticion = ScanEnhancedRequest.builder().consistentRead(consistente);
+        if (total > 1) {
+            peticion.segment(segmento).totalSegments(total);
+        }
+        if (tamanoPagina > 0) {
+            peticion.limit(tamanoPagina);
+        }
+        List<Institucion> instituciones = new ArrayList<>();
+        return tabla.scan(peticion.build())
+                .subscribe(pagina -> {
+                    instituciones.addAll(pagina.items());
+                    escaneados.addAndGet(pagina.scannedCount() == null ? 0 : pagina.scannedCount());
+                })
+                .thenApply(v -> instituciones);
+    }
+
+    public CompletableFuture<Pagina> escanearPaginaAsync(String desdeId, int limite) {
+        contar("scan.pagina");
+        ScanEnhancedRequest.Builder peticion = ScanEnhancedRequest.builder();
+        if (limite > 0) {
+            peticion.limit(limite);
+        }
+        if (desdeId != null) {
+            peticion.exclusiveStartKey(Map.of(HASH_KEY, AttributeValue.fromS(desdeId)));
+        }
+        CompletableFuture<Pagina> resultado = new CompletableFuture<>();
+        tabla.scan(peticion.build())
+                .limit(1)
+                .subscribe(pagina -> {
+                    Map<String, AttributeValue> ultima = pagina.lastEvaluatedKey();
+                    resultado.complete(new Pagina(pagina.items(),
+                            ultima == null || ultima.isEmpty() ? null : ultima.get(HASH_KEY).s()));
+                })
+                .whenComplete((v, e) -> {
+                    if (e != null) {
+                        resultado.completeExceptionally(e);
+                    } else {
+                        resultado.complete(new Pagina(List.of(), null));
+                    }
+                });
+        return resultado;
+    }
+
+    public CompletableFuture<Optional<Institucion>> findByIdAsync(String id) {
+        contar("get");
+        return tabla.getItem(Key.builder().partitionValue(id).build()).thenApply(Optional::ofNullable);
+    }
+
+    public CompletableFuture<Optional<Institucion>> findByIdConsistenteAsync(String id) {
+        contar("get");
+        return tabla.getItem(r -> r.key(Key.builder().partitionValue(id).build()).consistentRead(true))
+                .thenApply(Optional::ofNullable);
+    }
+
+    public <S extends Institucion> CompletableFuture<S> saveAsync(S institucion) {
+        if (institucion.getId() == null) {
+            institucion.setId(UUID.randomUUID().toString());
+        }
+        contar("put");
+        return tabla.putItem(institucion).thenApply(v -> institucion);
+    }
+
+    public CompletableFuture<Void> deleteByIdAsync(String id) {
+        contar("delete");
+        return tabla.deleteItem(Key.builder().partitionValue(id).build()).thenApply(v -> null);
+    }
+
+    @Override
+    public Optional<Institucion> findByCodigoBic(String codigoBic) {
+        return esperar(findByCodigoBicAsync(codigoBic));
+    }
+
+    @Override
+    public Pagina escanearPagina(String desdeId, int limite) {
+        return esperar(escanearPaginaAsync(desdeId, limite));
+    }
+
+    @Override
+    public <S extends Institucion> S save(S entity) {
+        return esperar(saveAsync(entity));
+    }
+
+    @Override
+    public <S extends Institucion> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> lista = StreamSupport.stream(entities.spliterator(), false).toList();
+        esperar(CompletableFuture.allOf(lista.stream().map(this::saveAsync).toArray(CompletableFuture[]::new)));
+        return lista;
+    }
+
+    @Override
+    public Optional<Institucion> findById(String id) {
+        return esperar(findByIdAsync(id));
+    }
+
+    @Override
+    public Optional<Institucion> findByIdConsistente(String id) {
+        return esperar(findByIdConsistenteAsync(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public Iterable<Institucion> findAll() {
+        return esperar(findAllAsync());
+    }
+
+    @Override
+    public List<Institucion> findAllConsistente() {
+        return esperar(findAllConsistenteAsync());
+    }
+
+    @Override
+    public Iterable<Institucion> findAllById(Iterable<String> ids) {
+        List<CompletableFuture<Optional<Institucion>>> futuros = StreamSupport.stream(ids.spliterator(), false)
+                .map(this::findByIdAsync)
+                .toList();
+        esperar(CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)));
+        return futuros.stream().map(CompletableFuture::join).flatMap(Optional::stream).toList();
+    }
+
+    @Override
+    public long count() {
+        contar("scan");
+        AtomicLong total = new AtomicLong();
+        esperar(dynamoDbAsyncClient.scanPaginator(s -> s.tableName(Institucion.TABLA).select(Select.COUNT))
+                .subscribe(pagina -> total.addAndGet(pagina.count())));
+        return total.get();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        esperar(deleteByIdAsync(id));
+    }
+
+    @Override
+    public void delete(Institucion entity) {
+        deleteById(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        List<CompletableFuture<Void>> futuros = new ArrayList<>();
+        ids.forEach(id -> futuros.add(deleteByIdAsync(id)));
+        esperar(CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)));
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Institucion> entities) {
+        List<String> ids = new ArrayList<>();
+        entities.forEach(e -> ids.add(e.getId()));
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAll() {
+        deleteAll(findAll());
+    }
+
+    private void contar(String operacion) {
+        meterRegistry.counter("directorio.dynamodb.operaciones", "operacion", operacion).increment();
+    }
+
+    private DistributionSummary itemsEscaneados(String operacion) {
+        return DistributionSummary.builder("directorio.dynamodb.items.escaneados")
+                .description("Ítems leídos por DynamoDB en cada operación completa")
+                .tag("operacion", operacion)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Espera el resultado y relanza la excepción original del SDK en lugar del
+     * envoltorio {@link CompletionException}.
+     */
+    static <T> T esperar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
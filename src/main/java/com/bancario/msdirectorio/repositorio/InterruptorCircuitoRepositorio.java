@@ -0,0 +1,160 @@
+package com.bancario.msdirectorio.repositorio;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.stereotype.Repository;
+
+import com.bancario.msdirectorio.converter.LocalDateTimeConverter;
+import com.bancario.msdirectorio.modelo.Institucion;
+
+import lombok.RequiredArgsConstructor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Escrituras atómicas sobre el atributo {@code interruptorCircuito} mediante
+ * UpdateItem, sin leer ni reescribir el ítem completo.
+ * Los booleanos se guardan como N (1/0), igual que los escribía DynamoDBMapper.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InterruptorCircuitoRepositorio {
+
+    private static final String HASH_KEY = "institucion_id";
+    private static final AttributeValue SI = AttributeValue.fromN("1");
+    private static final AttributeValue NO = AttributeValue.fromN("0");
+    private static final AttributeValue CERO = AttributeValue.fromN("0");
+
+    private static final LocalDateTimeConverter CONVERTER = new LocalDateTimeConverter();
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    /**
+     * Suma {@code fallos} al contador durable y completa con el total resultante.
+     */
+    public CompletableFuture<Integer> sumarFallos(String id, int fallos, LocalDateTime ultimoFallo) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(Institucion.TABLA)
+                .key(clave(id))
+                .conditionExpression("attribute_exists(" + HASH_KEY + ")")
+                .updateExpression("SET interruptorCircuito.fallosConsecutivos = "
+                        + "if_not_exists(interruptorCircuito.fallosConsecutivos, :cero) + :n, "
+                        + "interruptorCircuito.ultimoFallo = :t")
+                .expressionAttributeValues(Map.of(
+                        ":cero", CERO,
+                        ":n", AttributeValue.fromN(Integer.toString(fallos)),
+                        ":t", AttributeValue.fromS(CONVERTER.convert(ultimoFallo))))
+                .returnValues(ReturnValue.UPDATED_NEW)
+                .build();
+
+        return dynamoDbAsyncClient.updateItem(request)
+                .exceptionallyCompose(e -> {
+                    // Ítems antiguos pueden no tener el mapa interruptorCircuito y el SET sobre
+                    // la ruta anidada se rechaza: se crea el mapa y se reintenta una vez.
+                    if (causa(e) instanceof DynamoDbException d && d.awsErrorDetails() != null
+                            && "ValidationException".equals(d.awsErrorDetails().errorCode())) {
+                        return inicializar(id).thenCompose(v -> dynamoDbAsyncClient.updateItem(request));
+                    }
+                    return CompletableFuture.failedFuture(e);
+                })
+                .thenApply(r -> Integer.parseInt(r.attributes().get("interruptorCircuito").m()
+                        .get("fallosConsecutivos").n()));
+    }
+
+    /**
+     * Abre el interruptor solo si estaba cerrado. Completa con {@code true} si
+     * esta llamada hizo la transición.
+     */
+    public CompletableFuture<Boolean> abrir(String id, LocalDateTime ultimoFallo) {
+        return condicional(UpdateItemRequest.builder()
+                .tableName(Institucion.TABLA)
+                .key(clave(id))
+                .conditionExpression("interruptorCircuito.estaAbierto <> :si")
+                .updateExpression("SET interruptorCircuito.estaAbierto = :si, interruptorCircuito.ultimoFallo = :t")
+                .expressionAttributeValues(Map.of(
+                        ":si", SI,
+                        ":t", AttributeValue.fromS(CONVERTER.convert(ultimoFallo))))
+                .build());
+    }
+
+    /**
+     * Cierra el interruptor solo si sigue abierto y no hubo fallos posteriores a
+     * {@code ultimoFallo}. Entre réplicas, solo una gana la escritura.
+     */
+    public CompletableFuture<Boolean> cerrar(String id, LocalDateTime ultimoFallo) {
+        return condicional(UpdateItemRequest.builder()
+                .tableName(Institucion.TABLA)
+                .key(clave(id))
+                .conditionExpression("interruptorCircuito.estaAbierto = :si AND interruptorCircuito.ultimoFallo = :t")
+                .updateExpression("SET interruptorCircuito.estaAbierto = :no, interruptorCircuito.fallosConsecutivos = :cero")
+                .expressionAttributeValues(Map.of(
+                        ":si", SI,
+                        ":no", NO,
+                        ":cero", CERO,
+                        ":t", AttributeValue.fromS(CONVERTER.convert(ultimoFallo))))
+                .build());
+    }
+
+    /**
+     * Pone a cero los fallos consecutivos tras un éxito, solo si el interruptor
+     * está cerrado y había fallos: el cierre de uno abierto sigue siendo cosa de
+     * la recuperación.
+     */
+    public CompletableFuture<Boolean> reiniciarFallos(String id) {
+        return condicional(UpdateItemRequest.builder()
+                .tableName(Institucion.TABLA)
+                .key(clave(id))
+                .conditionExpression("interruptorCircuito.estaAbierto <> :si AND interruptorCircuito.fallosConsecutivos > :cero")
+                .updateExpression("SET interruptorCircuito.fallosConsecutivos = :cero")
+                .expressionAttributeValues(Map.of(
+                        ":si", SI,
+                        ":cero", CERO))
+                .build());
+    }
+
+    private CompletableFuture<Void> inicializar(String id) {
+        return condicional(UpdateItemRequest.builder()
+                .tableName(Institucion.TABLA)
+                .key(clave(id))
+                .conditionExpression("attribute_exists(" + HASH_KEY + ") AND attribute_not_exists(interruptorCircuito)")
+                .updateExpression("SET interruptorCircuito = :inicial")
+                .expressionAttributeValues(Map.of(":inicial", AttributeValue.fromM(Map.of(
+                        "estaAbierto", NO,
+                        "fallosConsecutivos", CERO))))
+                .build())
+                // Si la condición falla, otra réplica lo creó primero.
+                .thenApply(v -> null);
+    }
+
+    /**
+     * Ejecuta un UpdateItem condicional: {@code true} si se aplicó,
+     * {@code false} si la condición no se cumplió.
+     */
+    private CompletableFuture<Boolean> condicional(UpdateItemRequest request) {
+        return dynamoDbAsyncClient.updateItem(request)
+                .handle((r, e) -> {
+                    if (e == null) {
+                        return true;
+                    }
+                    if (causa(e) instanceof ConditionalCheckFailedException) {
+                        return false;
+                    }
+                    throw e instanceof CompletionException c ? c : new CompletionException(e);
+                });
+    }
+
+    private static Throwable causa(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private Map<String, AttributeValue> clave(String id) {
+        return Map.of(HASH_KEY, AttributeValue.fromS(id));
+    }
+}
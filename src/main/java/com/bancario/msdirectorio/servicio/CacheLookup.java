@@ -0,0 +1,464 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache de lookups en dos niveles: L1 en memoria (Caffeine) delante de las
+ * claves {@code lookup:bin:} de Redis. Las invalidaciones se difunden por
+ * pub/sub para que todas las réplicas limpien su L1.
+ * <p>
+ * Con el índice de enrutamiento cargado, el lookup individual no pasa por aquí
+ * (el trie es más rápido que un acierto en el L1; véase {@code LookupBenchmark}).
+ * Se usa mientras el índice no se ha cargado y en el lookup por lotes, donde un
+ * MGET sirve a una réplica recién arrancada sin esperar al scan.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheLookup {
+
+    public static final String CACHE_KEY_PREFIX = "lookup:bin:";
+    public static final String CANAL_INVALIDACION = "directorio:invalidacion";
+    public static final String METRICA_ERRORES_REDIS = "directorio.redis.errores";
+
+    private static final String INDICE_KEY_PREFIX = "lookup:bic:";
+    private static final Duration TTL_REDIS = Duration.ofHours(1);
+    private static final String SEPARADOR = "|";
+
+    // Borra las claves del índice de un banco cuyo nombre empieza por ARGV[1]
+    // (todas si viene vacío) y las quita del índice. UNLINK libera la memoria
+    // fuera del hilo principal de Redis.
+    private static final RedisScript<Long> SCRIPT_INVALIDAR = RedisScript.of("""
+            local claves = redis.call('ZRANGE', KEYS[1], 0, -1)
+            local borrar = {}
+            for _, clave in ipairs(claves) do
+                if ARGV[1] == '' or string.sub(clave, 1, #ARGV[1]) == ARGV[1] then
+                    borrar[#borrar + 1] = clave
+                end
+            end
+            for i = 1, #borrar, 500 do
+                local lote = {unpack(borrar, i, math.min(i + 499, #borrar))}
+                redis.call('UNLINK', unpack(lote))
+                redis.call('ZREM', KEYS[1], unpack(lote))
+            end
+            return #borrar
+            """, Long.class);
+
+    private final RedisTemplate<String, InstitucionDTO> lookupRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final InterruptorRedis interruptorRedis;
+    private final MeterRegistry meterRegistry;
+
+    private final String origen = UUID.randomUUID().toString();
+
+    @Value("${directorio.cache.l1.max-entradas:100000}")
+    private long maxEntradas;
+
+    @Value("${directorio.cache.l1.ttl-segundos:30}")
+    private long ttlSegundos;
+
+    // Recarga anticipada: pasado este tiempo, el siguiente acierto devuelve el valor
+    // actual y lo recarga en segundo plano. 0 la desactiva.
+    @Value("${directorio.cache.l1.refresco-segundos:0}")
+    private long refrescoSegundos;
+
+    // Las cargas hacen E/S contra Redis: van en hilos virtuales y no en el pool común.
+    private final ExecutorService ejecutorCargas = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Bancos cuya invalidación en Redis no se pudo aplicar; se reintenta al volver Redis.
+    private final Set<String> invalidacionesPendientes = ConcurrentHashMap.newKeySet();
+
+    // Índice inverso del L1 (BINs cacheados por BIC) y cargas en curso: una
+    // invalidación toca solo las claves del banco, sin recorrer el L1 entero.
+    private final ConcurrentHashMap<String, Set<String>> binsPorBic = new ConcurrentHashMap<>();
+    private final Set<String> cargasEnCurso = ConcurrentHashMap.newKeySet();
+
+    private volatile Function<String, InstitucionDTO> cargador = bin -> null;
+    private AsyncLoadingCache<String, InstitucionDTO> l1;
+    private Counter aciertosRedis;
+    private Counter fallosRedis;
+
+    @PostConstruct
+    void init() {
+        Caffeine<String, InstitucionDTO> builder = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .executor(ejecutorCargas)
+                .recordStats()
+                .evictionListener((String bin, InstitucionDTO dto, RemovalCause causa) -> desindexar(bin, dto));
+        if (refrescoSegundos > 0) {
+            builder.refreshAfterWrite(Duration.ofSeconds(refrescoSegundos));
+        }
+        l1 = builder.buildAsync(new CacheLoader<String, InstitucionDTO>() {
+            @Override
+            public InstitucionDTO load(String bin) {
+                return indexarCarga(bin, CacheLookup.this::cargar);
+            }
+
+            @Override
+            public InstitucionDTO reload(String bin, InstitucionDTO anterior) {
+                // La copia de Redis es igual de vieja que la del L1: se va al origen.
+                return indexarCarga(bin, CacheLookup.this::cargarDelOrigen);
+            }
+        });
+        CaffeineCacheMetrics.monitor(meterRegistry, l1, "lookup.l1");
+        // Mismo nombre y etiquetas que las métricas del L1, para comparar niveles.
+        aciertosRedis = meterRegistry.counter("cache.gets", "cache", "lookup.redis", "result", "hit");
+        fallosRedis = meterRegistry.counter("cache.gets", "cache", "lookup.redis", "result", "miss");
+        interruptorRedis.alRecuperar(this::reintentarInvalidaciones);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        ejecutorCargas.shutdownNow();
+    }
+
+    /**
+     * Registra cómo resolver un BIN que no está en ninguna cache. El cargador
+     * devuelve {@code null} si no hay banco disponible, y entonces no se cachea.
+     */
+    public void registrarCargador(Function<String, InstitucionDTO> cargador) {
+        this.cargador = cargador;
+    }
+
+    /**
+     * L1, luego Redis y por último el cargador registrado. Las peticiones
+     * concurrentes por un mismo BIN que falla en el L1 comparten una única carga
+     * (single-flight): tras una invalidación, N peticiones simultáneas cuestan un
+     * GET a Redis y una resolución, no N.
+     */
+    public Optional<InstitucionDTO> obtener(String bin) {
+        try {
+            return Optional.ofNullable(l1.get(bin).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private InstitucionDTO cargar(String bin) {
+        if (!interruptorRedis.permite()) {
+            return cargarDelOrigen(bin);
+        }
+        try {
+            InstitucionDTO dto = lookupRedisTemplate.opsForValue().get(CACHE_KEY_PREFIX + bin);
+            interruptorRedis.exito();
+            if (dto != null) {
+                aciertosRedis.increment();
+                return dto;
+            }
+            fallosRedis.increment();
+        } catch (Exception e) {
+            errorRedis("obtener");
+            log.warn("Redis no disponible para cache lookup: {}", e.getMessage());
+        }
+        return cargarDelOrigen(bin);
+    }
+
+    private InstitucionDTO cargarDelOrigen(String bin) {
+        InstitucionDTO dto = cargador.apply(bin);
+        if (dto == null || !interruptorRedis.permite()) {
+            return dto;
+        }
+        try {
+            escribir(Map.of(bin, dto));
+            interruptorRedis.exito();
+        } catch (Exception e) {
+            errorRedis("guardar");
+            log.warn("Redis no disponible para guardar cache: {}", e.getMessage());
+        }
+        return dto;
+    }
+
+    /**
+     * Lectura en lote: primero el L1 y luego un único MGET a Redis para lo que
+     * falte. Devuelve solo los BINs encontrados.
+     */
+    public Map<String, InstitucionDTO> obtenerVarios(Collection<String> bins) {
+        Map<String, InstitucionDTO> encontrados = new HashMap<>();
+        List<String> pendientes = new ArrayList<>();
+        for (String bin : bins) {
+            InstitucionDTO local = l1.synchronous().getIfPresent(bin);
+            if (local != null) {
+                encontrados.put(bin, local);
+            } else {
+                pendientes.add(bin);
+            }
+        }
+        if (pendientes.isEmpty() || !interruptorRedis.permite()) {
+            return encontrados;
+        }
+
+        try {
+            List<InstitucionDTO> valores = lookupRedisTemplate.opsForValue()
+                    .multiGet(pendientes.stream().map(bin -> CACHE_KEY_PREFIX + bin).toList());
+            interruptorRedis.exito();
+            int aciertos = 0;
+            for (int i = 0; valores != null && i < valores.size(); i++) {
+                InstitucionDTO dto = valores.get(i);
+                if (dto != null) {
+                    l1.synchronous().put(pendientes.get(i), dto);
+                    indexar(pendientes.get(i), dto);
+                    encontrados.put(pendientes.get(i), dto);
+                    aciertos++;
+                }
+            }
+            aciertosRedis.increment(aciertos);
+            fallosRedis.increment(pendientes.size() - aciertos);
+        } catch (Exception e) {
+            errorRedis("obtenerVarios");
+            log.warn("Redis no disponible para cache lookup en lote: {}", e.getMessage());
+        }
+        return encontrados;
+    }
+
+    /**
+     * Escritura en lote: todos los SET con TTL van en un único pipeline.
+     */
+    public void guardarVarios(Map<String, InstitucionDTO> entradas) {
+        if (entradas.isEmpty()) {
+            return;
+        }
+        l1.synchronous().putAll(entradas);
+        entradas.forEach(this::indexar);
+        if (!interruptorRedis.permite()) {
+            return;
+        }
+        try {
+            escribir(entradas);
+            interruptorRedis.exito();
+        } catch (Exception e) {
+            errorRedis("guardarVarios");
+            log.warn("Redis no disponible para guardar cache en lote: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Invalida todas las entradas de un banco (cambio de estado, URL o
+     * interruptor): en Redis con un único script sobre su índice de claves, en el
+     * L1 local y, vía pub/sub, en el L1 de las demás réplicas.
+     */
+    public void invalidar(String bic) {
+        borrarIndexadas(bic, "");
+        invalidarLocal(bic, List.of(), List.of());
+        difundir(bic, List.of(), List.of());
+    }
+
+    /**
+     * Invalida tras dar de alta {@code prefijos} en {@code bic} (banco nuevo o
+     * reglas añadidas): los números bajo esos prefijos que hasta ahora resolvían
+     * {@code anteriores} por un prefijo más corto están cacheados en el índice de
+     * esos bancos, no en el de {@code bic}. Con un solo prefijo se borran solo
+     * sus claves; con varios, las de los bancos anteriores completos (un script
+     * por banco en lugar de uno por prefijo). La difusión lleva {@code bic}, así
+     * que las demás réplicas lo recargan en su índice, y {@code anteriores}, para
+     * que limpien su L1 sin recorrerlo.
+     */
+    public void invalidarPrefijos(String bic, Collection<String> anteriores, List<String> prefijos) {
+        String prefijoClave = prefijos.size() == 1 ? CACHE_KEY_PREFIX + prefijos.get(0) : "";
+        for (String anterior : anteriores) {
+            borrarIndexadas(anterior, prefijoClave);
+        }
+        invalidarLocal(bic, anteriores, prefijos);
+        difundir(bic, anteriores, prefijos);
+    }
+
+    /**
+     * Si Redis no está disponible, el banco queda pendiente y al volver se
+     * invalida completo: sus claves podrían seguir vivas hasta el TTL.
+     */
+    private void borrarIndexadas(String bic, String prefijoClave) {
+        if (!interruptorRedis.permite()) {
+            invalidacionesPendientes.add(bic);
+            return;
+        }
+        try {
+            Long borradas = stringRedisTemplate.execute(SCRIPT_INVALIDAR, List.of(INDICE_KEY_PREFIX + bic), prefijoClave);
+            interruptorRedis.exito();
+            log.debug("Invalidadas {} claves de lookup de {}", borradas, bic);
+        } catch (Exception e) {
+            invalidacionesPendientes.add(bic);
+            errorRedis("invalidar");
+            log.warn("Redis no disponible para invalidar cache: {}", e.getMessage());
+        }
+    }
+
+    private void reintentarInvalidaciones() {
+        for (String bic : invalidacionesPendientes) {
+            invalidacionesPendientes.remove(bic);
+            borrarIndexadas(bic, "");
+        }
+    }
+
+    private void difundir(String bic, Collection<String> anteriores, Collection<String> prefijos) {
+        if (!interruptorRedis.permite()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(CANAL_INVALIDACION,
+                    origen + SEPARADOR + bic + SEPARADOR + String.join(",", prefijos)
+                            + SEPARADOR + String.join(",", anteriores));
+        } catch (Exception e) {
+            errorRedis("difundir");
+            log.warn("Redis no disponible para difundir invalidación: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * SET de cada entrada y alta de su clave en el índice del banco (ZSET con la
+     * expiración como score), en un único pipeline. Las claves ya expiradas se
+     * podan del índice en cada alta, así que su tamaño sigue al de las claves vivas.
+     */
+    @SuppressWarnings("unchecked")
+    private void escribir(Map<String, InstitucionDTO> entradas) {
+        RedisSerializer<InstitucionDTO> codec = (RedisSerializer<InstitucionDTO>) lookupRedisTemplate.getValueSerializer();
+        long ahora = System.currentTimeMillis();
+        double expira = ahora + TTL_REDIS.toMillis();
+        lookupRedisTemplate.executePipelined((RedisCallback<Object>) conexion -> {
+            entradas.forEach((bin, dto) -> {
+                byte[] clave = (CACHE_KEY_PREFIX + bin).getBytes(StandardCharsets.UTF_8);
+                byte[] indice = (INDICE_KEY_PREFIX + dto.getCodigoBic()).getBytes(StandardCharsets.UTF_8);
+                conexion.stringCommands().set(clave, codec.serialize(dto), Expiration.from(TTL_REDIS),
+                        RedisStringCommands.SetOption.upsert());
+                conexion.zSetCommands().zAdd(indice, expira, clave);
+                conexion.zSetCommands().zRemRangeByScore(indice, Double.NEGATIVE_INFINITY, ahora);
+                conexion.keyCommands().pExpire(indice, TTL_REDIS.toMillis());
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Procesa un mensaje del canal de invalidación. Devuelve el BIC afectado si el
+     * mensaje viene de otra réplica, o {@code null} si es propio o no es válido.
+     */
+    public String recibirInvalidacion(String mensaje) {
+        String[] partes = mensaje.split("\\" + SEPARADOR, -1);
+        if (partes.length != 4 || origen.equals(partes[0])) {
+            return null;
+        }
+        invalidarLocal(partes[1], lista(partes[3]), lista(partes[2]));
+        return partes[1];
+    }
+
+    private static List<String> lista(String valores) {
+        return valores.isEmpty() ? List.of() : List.of(valores.split(","));
+    }
+
+    private void errorRedis(String operacion) {
+        meterRegistry.counter(METRICA_ERRORES_REDIS, "operacion", operacion).increment();
+        interruptorRedis.fallo();
+    }
+
+    /**
+     * Quita del L1 todas las entradas de {@code bic} y, de las de
+     * {@code anteriores}, las que caen bajo {@code prefijos}: con el índice inverso
+     * cuesta lo que ocupan esos bancos, no el L1 entero. Las cargas aún en curso
+     * también se descartan: podrían traer el valor anterior a la invalidación.
+     */
+    private void invalidarLocal(String bic, Collection<String> anteriores, Collection<String> prefijos) {
+        l1.synchronous().invalidateAll(List.copyOf(cargasEnCurso));
+        List<String> afectados = new ArrayList<>(desindexar(bic, bin -> true));
+        for (String anterior : anteriores) {
+            afectados.addAll(desindexar(anterior, bin -> prefijos.stream().anyMatch(bin::startsWith)));
+        }
+        l1.synchronous().invalidateAll(afectados);
+    }
+
+    /**
+     * Se indexa antes de dar la carga por terminada: una invalidación concurrente
+     * ve el BIN o en las cargas en curso o en el índice.
+     */
+    private InstitucionDTO indexarCarga(String bin, Function<String, InstitucionDTO> carga) {
+        cargasEnCurso.add(bin);
+        try {
+            InstitucionDTO dto = carga.apply(bin);
+            indexar(bin, dto);
+            return dto;
+        } finally {
+            cargasEnCurso.remove(bin);
+        }
+    }
+
+    private void indexar(String bin, InstitucionDTO dto) {
+        if (dto != null && dto.getCodigoBic() != null) {
+            binsPorBic.computeIfAbsent(dto.getCodigoBic(), b -> ConcurrentHashMap.newKeySet()).add(bin);
+        }
+    }
+
+    /**
+     * Desalojo por tamaño o TTL. Si el BIN se reemplazó por otro banco, el índice
+     * del anterior conserva una referencia de más: solo cuesta una invalidación
+     * sin efecto.
+     */
+    private void desindexar(String bin, InstitucionDTO dto) {
+        if (bin != null && dto != null && dto.getCodigoBic() != null) {
+            binsPorBic.computeIfPresent(dto.getCodigoBic(), (b, bins) -> {
+                bins.remove(bin);
+                return bins.isEmpty() ? null : bins;
+            });
+        }
+    }
+
+    /**
+     * Saca del índice de {@code bic} los BINs que cumplen {@code afectado} y los
+     * devuelve; el L1 se invalida fuera del compute para no anidar bloqueos con
+     * los del propio Caffeine.
+     */
+    private List<String> desindexar(String bic, Predicate<String> afectado) {
+        List<String> quitados = new ArrayList<>();
+        binsPorBic.computeIfPresent(bic, (b, bins) -> {
+            for (Iterator<String> it = bins.iterator(); it.hasNext();) {
+                String bin = it.next();
+                if (afectado.test(bin)) {
+                    it.remove();
+                    quitados.add(bin);
+                }
+            }
+            return bins.isEmpty() ? null : bins;
+        });
+        return quitados;
+    }
+}
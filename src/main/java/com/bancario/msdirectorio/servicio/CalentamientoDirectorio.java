@@ -0,0 +1,128 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.converter.RutaLookupCodec;
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.bancario.msdirectorio.mapper.InstitucionMapper;
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Calentamiento tras el arranque: carga el índice de enrutamiento y el snapshot
+ * con un único scan, precarga opcionalmente las claves {@code lookup:bin:} de
+ * todos los prefijos y ejercita la resolución en memoria para que el JIT la
+ * compile. Forma parte del grupo de readiness, así que la réplica no recibe
+ * tráfico hasta terminar (o hasta tener un snapshot local de rutas con el que
+ * enrutar); si falla, se reintenta en la siguiente pasada.
+ */
+@Slf4j
+@Component("calentamiento")
+@RequiredArgsConstructor
+public class CalentamientoDirectorio implements HealthIndicator {
+
+    private final IndiceEnrutamiento indiceEnrutamiento;
+    private final SnapshotDirectorio snapshotDirectorio;
+    private final DirectorioServicio directorioServicio;
+    private final MotorInterruptor motorInterruptor;
+    private final InstitucionMapper mapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${directorio.calentamiento.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${directorio.calentamiento.precargar-redis:true}")
+    private boolean precargarRedis;
+
+    @Value("${directorio.calentamiento.iteraciones-jit:20000}")
+    private int iteracionesJit;
+
+    @Value("${directorio.lookup.lote.max:10000}")
+    private int maxLoteLookup;
+
+    private volatile boolean completado;
+
+    @Scheduled(fixedDelayString = "${directorio.calentamiento.reintento-ms:5000}")
+    public void calentar() {
+        if (completado || !habilitado) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            indiceEnrutamiento.asegurarCargado();
+            snapshotDirectorio.obtener();
+
+            List<String> prefijos = prefijos();
+            if (precargarRedis) {
+                for (int i = 0; i < prefijos.size(); i += maxLoteLookup) {
+                    directorioServicio.descubrirBancosPorBin(
+                            prefijos.subList(i, Math.min(i + maxLoteLookup, prefijos.size())));
+                }
+            }
+            ejercitar(prefijos);
+
+            completado = true;
+            log.info("Calentamiento completado en {} ms: {} prefijos", (System.nanoTime() - inicio) / 1_000_000,
+                    prefijos.size());
+        } catch (Exception e) {
+            log.warn("Calentamiento fallido, se reintentará: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (!habilitado || completado) {
+            return Health.up().build();
+        }
+        // Con un snapshot local válido se puede enrutar ya; el calentamiento sigue detrás.
+        return indiceEnrutamiento.enrutaDesdeSnapshotLocal()
+                ? Health.up().withDetail("origen", "snapshot-local").build()
+                : Health.outOfService().build();
+    }
+
+    /**
+     * Resolución en el trie, interruptor, mapeo y serialización (codec de Redis y
+     * JSON del lote), sin I/O: es lo que se ejecuta en cada lookup. De paso deja
+     * serializada la respuesta del lookup individual de cada banco.
+     */
+    private void ejercitar(List<String> prefijos) throws Exception {
+        if (prefijos.isEmpty()) {
+            return;
+        }
+        RutaLookupCodec codec = new RutaLookupCodec();
+        long bytes = 0;
+        for (int i = 0; i < iteracionesJit; i++) {
+            String prefijo = prefijos.get(i % prefijos.size());
+            directorioServicio.descubrirRutaSerializada(prefijo);
+            Institucion inst = indiceEnrutamiento.resolver(prefijo);
+            if (inst != null && motorInterruptor.permiteTrafico(inst.getInterruptorCircuito())) {
+                InstitucionDTO dto = codec.deserialize(codec.serialize(mapper.toRutaDTO(inst)));
+                bytes += objectMapper.writeValueAsBytes(dto).length;
+            }
+        }
+        log.debug("Ruta de lookup ejercitada {} veces ({} bytes serializados)", iteracionesJit, bytes);
+    }
+
+    private List<String> prefijos() {
+        List<String> prefijos = new ArrayList<>();
+        for (Institucion inst : indiceEnrutamiento.instituciones()) {
+            if (inst.getReglasEnrutamiento() != null) {
+                for (ReglaEnrutamiento regla : inst.getReglasEnrutamiento()) {
+                    prefijos.add(regla.getPrefijoBin());
+                }
+            }
+        }
+        return prefijos;
+    }
+}
@@ -0,0 +1,230 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.dto.CambioDirectorioDTO;
+import com.bancario.msdirectorio.mapper.InstitucionMapper;
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+import com.bancario.msdirectorio.repositorio.InstitucionParcialRepositorio;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+/**
+ * Agrupa las reglas pendientes de cada banco y las escribe juntas con
+ * UpdateItem + {@code list_append}, sin reescribir el ítem: N altas seguidas
+ * sobre un BIC cuestan una escritura por volcado y no N reescrituras de la
+ * lista completa. Cada alta espera a que DynamoDB confirme su escritura, así
+ * que cuando {@link #anexar} vuelve la regla ya es durable.
+ * <p>
+ * Las altas son idempotentes: no se escriben las reglas que el banco ya tiene
+ * (mismo prefijo y agente), y cada tramo exige que la lista mida lo esperado.
+ * Si un tramo falla, lo escrito antes se aplica y se confirma a las altas que
+ * cubre; las demás fallan y, al reintentarlas, solo se escribe lo que falta.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CoalescedorReglas {
+
+    private final InstitucionParcialRepositorio parcialRepositorio;
+    private final InstitucionRepositorio institucionRepositorio;
+    private final IndiceEnrutamiento indiceEnrutamiento;
+    private final CacheLookup cacheLookup;
+    private final RegistroCambios registroCambios;
+    private final InstitucionMapper mapper;
+
+    private final ConcurrentHashMap<String, ConcurrentLinkedQueue<Alta>> pendientes = new ConcurrentHashMap<>();
+
+    @Value("${directorio.reglas.max-por-escritura:500}")
+    private int maxPorEscritura;
+
+    /**
+     * Encola las reglas y espera al volcado que las persiste. Devuelve la
+     * institución tal como quedó en DynamoDB.
+     */
+    public Institucion anexar(Institucion inst, List<ReglaEnrutamiento> reglas) {
+        Alta alta = new Alta(inst, List.copyOf(reglas), new CompletableFuture<>(), false);
+        encolar(inst.getCodigoBic(), alta);
+        try {
+            return alta.confirmacion().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private void encolar(String bic, Alta alta) {
+        pendientes.computeIfAbsent(bic, b -> new ConcurrentLinkedQueue<>()).add(alta);
+    }
+
+    /**
+     * Vuelca lo pendiente: las escrituras de todos los bancos se lanzan a la vez
+     * (las de un mismo banco en orden, en tramos de como mucho
+     * {@code max-por-escritura} reglas) y los efectos se aplican después, en este
+     * hilo, antes de confirmar a quien espera.
+     */
+    @Scheduled(fixedDelayString = "${directorio.reglas.flush-ms:20}")
+    public void volcar() {
+        Map<String, Lote> lotes = new HashMap<>();
+        Map<String, CompletableFuture<Progreso>> enVuelo = new HashMap<>();
+        pendientes.forEach((bic, cola) -> {
+            List<Alta> altas = new ArrayList<>();
+            for (Alta alta = cola.poll(); alta != null; alta = cola.poll()) {
+                altas.add(alta);
+            }
+            if (altas.isEmpty()) {
+                return;
+            }
+            Lote lote = preparar(bic, altas);
+            lotes.put(bic, lote);
+            enVuelo.put(bic, escribir(lote.base().getId(), lote.reglas(), lote.previas(), 0, lote.base()));
+        });
+
+        enVuelo.forEach((bic, escritura) -> {
+            Lote lote = lotes.get(bic);
+            Progreso progreso = escritura.join();
+            if (progreso.escritas() > 0) {
+                aplicar(bic, progreso.guardada(), lote.reglas().subList(0, progreso.escritas()), lote.altas().size());
+            }
+            if (progreso.error() == null) {
+                lote.altas().forEach(alta -> alta.confirmacion().complete(progreso.guardada()));
+                return;
+            }
+            log.warn("No se pudieron persistir {} de {} reglas de {}: {}", lote.reglas().size() - progreso.escritas(),
+                    lote.reglas().size(), bic, progreso.error().getMessage());
+            Institucion releida = progreso.error() instanceof ConditionalCheckFailedException ? releer(bic, lote) : null;
+            for (int i = 0; i < lote.altas().size(); i++) {
+                Alta alta = lote.altas().get(i);
+                if (lote.ultimas()[i] < progreso.escritas()) {
+                    alta.confirmacion().complete(progreso.guardada());
+                } else if (releida != null && !alta.reintentada()) {
+                    // La lista no medía lo esperado (otra escritura se adelantó):
+                    // se reintenta una vez sobre el ítem releído.
+                    encolar(bic, new Alta(releida, alta.reglas(), alta.confirmacion(), true));
+                } else {
+                    alta.confirmacion().completeExceptionally(progreso.error());
+                }
+            }
+        });
+    }
+
+    /**
+     * Reglas a escribir en orden, sin las que el banco ya tiene ni repetidas
+     * dentro del lote, y la posición de la última regla de cada alta: un alta
+     * está escrita cuando lo está esa posición. La base es la copia indexada si
+     * existe; si no, el ítem releído de un reintento o la institución con la que
+     * llegó la primera alta.
+     */
+    private Lote preparar(String bic, List<Alta> altas) {
+        Institucion base = indiceEnrutamiento.buscarPorBic(bic);
+        if (base == null) {
+            base = altas.stream().filter(Alta::reintentada).map(Alta::base).findFirst()
+                    .orElse(altas.get(0).base());
+        }
+        List<ReglaEnrutamiento> existentes = base.getReglasEnrutamiento() == null ? List.of()
+                : base.getReglasEnrutamiento();
+        Set<String> vistas = new HashSet<>();
+        existentes.forEach(regla -> vistas.add(clave(regla)));
+
+        List<ReglaEnrutamiento> reglas = new ArrayList<>();
+        int[] ultimas = new int[altas.size()];
+        for (int i = 0; i < altas.size(); i++) {
+            ultimas[i] = -1;
+            for (ReglaEnrutamiento regla : altas.get(i).reglas()) {
+                if (vistas.add(clave(regla))) {
+                    reglas.add(regla);
+                }
+                // Una regla ya presente cuenta como escrita en su sitio.
+                ultimas[i] = Math.max(ultimas[i], reglas.size() - 1);
+            }
+        }
+        return new Lote(base, existentes.size(), reglas, altas, ultimas);
+    }
+
+    /**
+     * Escribe los tramos en orden, cada uno condicionado al tamaño que deja el
+     * anterior. Nunca falla: completa con lo último que DynamoDB confirmó,
+     * cuántas reglas llegó a escribir y, si se detuvo, el error.
+     */
+    private CompletableFuture<Progreso> escribir(String id, List<ReglaEnrutamiento> reglas, int previas, int desde,
+            Institucion ultima) {
+        if (desde >= reglas.size()) {
+            return CompletableFuture.completedFuture(new Progreso(ultima, desde, null));
+        }
+        List<ReglaEnrutamiento> tramo = reglas.subList(desde, Math.min(desde + maxPorEscritura, reglas.size()));
+        return parcialRepositorio.anexarReglas(id, tramo, previas + desde)
+                .handle((guardada, e) -> e == null
+                        ? escribir(id, reglas, previas, desde + tramo.size(), guardada)
+                        : CompletableFuture.completedFuture(new Progreso(ultima, desde, causa(e))))
+                .thenCompose(siguiente -> siguiente);
+    }
+
+    /**
+     * Lectura fuerte del ítem tras un conflicto de tamaño; {@code null} si ya no
+     * existe o no se pudo leer.
+     */
+    private Institucion releer(String bic, Lote lote) {
+        try {
+            Institucion releida = institucionRepositorio.findByIdConsistente(lote.base().getId()).orElse(null);
+            if (releida != null) {
+                indiceEnrutamiento.actualizar(releida);
+            }
+            return releida;
+        } catch (Exception e) {
+            log.warn("No se pudo releer {} tras un conflicto al anexar reglas: {}", bic, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Índice, cache y log de cambios. Las entradas cacheadas bajo los prefijos
+     * nuevos pertenecen a quien los resolvía antes.
+     */
+    private void aplicar(String bic, Institucion guardada, List<ReglaEnrutamiento> escritas, int altas) {
+        List<String> prefijos = escritas.stream().map(ReglaEnrutamiento::getPrefijoBin).toList();
+        Set<String> anteriores = indiceEnrutamiento.propietarios(prefijos, bic);
+
+        indiceEnrutamiento.actualizar(guardada);
+        cacheLookup.invalidarPrefijos(bic, anteriores, prefijos);
+        registroCambios.registrar(CambioDirectorioDTO.Tipo.REGLA, mapper.toDTO(guardada));
+        log.debug("Volcadas {} reglas de {} en {} altas", prefijos.size(), bic, altas);
+    }
+
+    private static String clave(ReglaEnrutamiento regla) {
+        return regla.getPrefijoBin() + '|' + regla.getAgente();
+    }
+
+    private static Throwable causa(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private record Alta(Institucion base, List<ReglaEnrutamiento> reglas, CompletableFuture<Institucion> confirmacion,
+            boolean reintentada) {
+    }
+
+    private record Lote(Institucion base, int previas, List<ReglaEnrutamiento> reglas, List<Alta> altas,
+            int[] ultimas) {
+    }
+
+    private record Progreso(Institucion guardada, int escritas, Throwable error) {
+    }
+}
@@ -1,39 +1,89 @@
 package com.bancario.msdirectorio.servicio;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.temporal.ChronoUnit;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 
+import com.bancario.msdirectorio.dto.AcuseReglasDTO;
+import com.bancario.msdirectorio.dto.AcuseReportesDTO;
+import com.bancario.msdirectorio.dto.CambioDirectorioDTO;
 import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.bancario.msdirectorio.dto.ReporteResultadoDTO;
 import com.bancario.msdirectorio.modelo.Institucion;
 import com.bancario.msdirectorio.modelo.InterruptorCircuito;
 import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+import com.bancario.msdirectorio.repositorio.InstitucionParcialRepositorio;
 import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
 import com.bancario.msdirectorio.mapper.InstitucionMapper;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = "directorio.operacion", description = "Latencia de las operaciones del directorio")
 public class DirectorioServicio {
 
+    private static final int MAX_DIGITOS_PAN = 19;
+    private static final Base64.Encoder CODIFICADOR_CURSOR = Base64.getUrlEncoder().withoutPadding();
+
     private final InstitucionRepositorio institucionRepositorio;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheLookup cacheLookup;
     private final InstitucionMapper mapper;
-
-    private static final String CACHE_KEY_PREFIX = "lookup:bin:";
+    private final IndiceEnrutamiento indiceEnrutamiento;
+    private final MotorInterruptor motorInterruptor;
+    private final SnapshotDirectorio snapshotDirectorio;
+    private final RegistroCambios registroCambios;
+    private final CoalescedorReglas coalescedorReglas;
+    private final InstitucionParcialRepositorio parcialRepositorio;
+    private final RespuestasLookup respuestasLookup;
+    private final IngestaReportes ingestaReportes;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${directorio.lookup.lote.max:10000}")
+    private int maxLoteLookup;
+
+    @Value("${directorio.lookup.lote.tramo:500}")
+    private int tramoLoteLookup;
+
+    @Value("${directorio.reglas.lote.max:5000}")
+    private int maxLoteReglas;
+
+    @Value("${directorio.reportes.lote.max:10000}")
+    private int maxLoteReportes;
+
+    @Value("${directorio.listado.limite-max:1000}")
+    private int maxLimiteListado;
+
+    private Counter rechazosFormato;
+    private Counter rechazosSinRuta;
+
+    @PostConstruct
+    void init() {
+        rechazosFormato = meterRegistry.counter("directorio.lookup.rechazados", "motivo", "formato");
+        rechazosSinRuta = meterRegistry.counter("directorio.lookup.rechazados", "motivo", "sin_ruta");
+        cacheLookup.registrarCargador(this::resolverDesdeIndice);
+    }
 
     public InstitucionDTO registrarInstitucion(@NonNull InstitucionDTO dto) {
 
@@ -57,13 +107,102 @@ public class DirectorioServicio {
         }
 
         Institucion saved = institucionRepositorio.save(institucion);
-        return mapper.toDTO(saved);
+        List<String> prefijos = saved.getReglasEnrutamiento().stream()
+                .map(ReglaEnrutamiento::getPrefijoBin)
+                .toList();
+        Set<String> anteriores = indiceEnrutamiento.propietarios(prefijos, saved.getCodigoBic());
+        indiceEnrutamiento.actualizar(saved);
+        // Aunque no traiga reglas: la difusión hace que las otras réplicas carguen el banco.
+        cacheLookup.invalidarPrefijos(saved.getCodigoBic(), anteriores, prefijos);
+        InstitucionDTO resultado = mapper.toDTO(saved);
+        registroCambios.registrar(CambioDirectorioDTO.Tipo.REGISTRO, resultado);
+        return resultado;
     }
 
     public List<InstitucionDTO> listarTodas() {
-        List<Institucion> all = StreamSupport.stream(institucionRepositorio.findAll().spliterator(), false)
-                .collect(Collectors.toList());
-        return mapper.toDTOList(all);
+        return snapshotDirectorio.obtener().instituciones();
+    }
+
+    /**
+     * Directorio completo pre-serializado, reconstruido solo tras escrituras.
+     */
+    public SnapshotDirectorio.Snapshot obtenerSnapshot() {
+        return snapshotDirectorio.obtener();
+    }
+
+    /**
+     * Una página del directorio leída directamente de DynamoDB a partir de un
+     * cursor opaco (la LastEvaluatedKey del scan). La memoria usada depende del
+     * límite, no del tamaño del directorio.
+     */
+    public PaginaDirectorio paginaDirectorio(String cursor, int limite) {
+        if (limite < 1 || limite > maxLimiteListado) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + maxLimiteListado);
+        }
+        InstitucionRepositorio.Pagina pagina = institucionRepositorio.escanearPagina(leerCursor(cursor), limite);
+        return new PaginaDirectorio(mapper.toDTOList(pagina.instituciones()),
+                pagina.siguienteId() == null ? null : CODIFICADOR_CURSOR.encodeToString(
+                        pagina.siguienteId().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Recorre el directorio completo página a página del scan, entregando cada
+     * página según llega, sin acumular el directorio en memoria.
+     */
+    public void recorrerDirectorio(Consumer<List<InstitucionDTO>> destino) {
+        String desde = null;
+        do {
+            InstitucionRepositorio.Pagina pagina = institucionRepositorio.escanearPagina(desde, 0);
+            destino.accept(mapper.toDTOList(pagina.instituciones()));
+            desde = pagina.siguienteId();
+        } while (desde != null);
+    }
+
+    private static String leerCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Cambios del directorio posteriores a {@code desde}, para que los nodos del
+     * switch mantengan una réplica local. Si el log ya no cubre esa versión se
+     * devuelve el directorio completo, leído con un scan consistente después de
+     * leer la versión: todo cambio hasta esa versión ya está en DynamoDB y entra
+     * en el scan, y lo posterior el cliente lo vuelve a pedir (aplicar un cambio
+     * dos veces es idempotente). La copia local del índice no sirve aquí: puede
+     * ir por detrás del log. Vacío si el log no está disponible.
+     */
+    public Optional<CambioDirectorioDTO.LoteDTO> cambiosDesde(long desde) {
+        Optional<Long> version = registroCambios.versionActual();
+        if (version.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<List<CambioDirectorioDTO>> cambios = desde <= version.get()
+                ? registroCambios.desde(desde)
+                : Optional.empty();
+
+        if (cambios.isEmpty()) {
+            log.info("Resincronización completa solicitada desde la versión {}", desde);
+            return Optional.of(CambioDirectorioDTO.LoteDTO.builder()
+                    .version(version.get())
+                    .completo(true)
+                    .instituciones(mapper.toDTOList(institucionRepositorio.findAllConsistente()))
+                    .build());
+        }
+
+        List<CambioDirectorioDTO> lista = cambios.get();
+        return Optional.of(CambioDirectorioDTO.LoteDTO.builder()
+                .version(lista.isEmpty() ? desde : lista.get(lista.size() - 1).getVersion())
+                .completo(false)
+                .cambios(lista)
+                .build());
     }
 
     public Optional<InstitucionDTO> buscarPorBic(String bic) {
@@ -73,124 +212,224 @@ public class DirectorioServicio {
 
         return institucionRepositorio.findByCodigoBic(bic)
                 .filter(this::validarDisponibilidad)
-                .map(mapper::toDTO);
+                .map(inst -> disponible(mapper.toDTO(inst)));
     }
 
     public InstitucionDTO aniadirRegla(@NonNull String bic, @NonNull InstitucionDTO.ReglaDTO nuevaReglaDTO) {
-        Institucion inst = institucionRepositorio.findByCodigoBic(bic)
-                .orElseThrow(() -> new RuntimeException("Banco no encontrado: " + bic));
+        Institucion inst = buscarParaEscritura(bic);
+        ReglaEnrutamiento nuevaRegla = new ReglaEnrutamiento(nuevaReglaDTO.getPrefijoBin(), nuevaReglaDTO.getAgente());
+        return mapper.toDTO(coalescedorReglas.anexar(inst, List.of(nuevaRegla)));
+    }
 
-        if (inst.getReglasEnrutamiento() == null) {
-            inst.setReglasEnrutamiento(new ArrayList<>());
+    /**
+     * Alta masiva de reglas (onboarding de un banco): se añaden con list_append
+     * en tramos, sin reescribir el ítem. Responde cuando DynamoDB confirmó todas.
+     */
+    public AcuseReglasDTO aniadirReglas(@NonNull String bic, @NonNull List<InstitucionDTO.ReglaDTO> reglasDTO) {
+        if (reglasDTO.isEmpty() || reglasDTO.size() > maxLoteReglas) {
+            throw new IllegalArgumentException("El lote debe tener entre 1 y " + maxLoteReglas + " reglas");
         }
+        Institucion inst = buscarParaEscritura(bic);
+        List<ReglaEnrutamiento> reglas = reglasDTO.stream()
+                .map(r -> new ReglaEnrutamiento(r.getPrefijoBin(), r.getAgente()))
+                .toList();
+        Institucion guardada = coalescedorReglas.anexar(inst, reglas);
+        return AcuseReglasDTO.builder()
+                .codigoBic(bic)
+                .reglasAnadidas(reglas.size())
+                .totalReglas(guardada.getReglasEnrutamiento() == null ? 0 : guardada.getReglasEnrutamiento().size())
+                .build();
+    }
 
-        ReglaEnrutamiento nuevaRegla = new ReglaEnrutamiento(nuevaReglaDTO.getPrefijoBin(), nuevaReglaDTO.getAgente());
-        inst.getReglasEnrutamiento().add(nuevaRegla);
-        try {
-            redisTemplate.delete(CACHE_KEY_PREFIX + nuevaRegla.getPrefijoBin());
-        } catch (Exception e) {
-            log.warn("Redis no disponible para invalidar cache: {}", e.getMessage());
+    private Institucion buscarParaEscritura(String bic) {
+        Institucion inst = indiceEnrutamiento.buscarPorBic(bic);
+        if (inst == null) {
+            inst = institucionRepositorio.findByCodigoBic(bic)
+                    .orElseThrow(() -> new RuntimeException("Banco no encontrado: " + bic));
         }
-
-        return mapper.toDTO(institucionRepositorio.save(inst));
+        return inst;
     }
 
     /**
-     * Busca un banco por BIN (prefijo de cuenta).
-     * DynamoDB no soporta queries sobre nested lists, así que hacemos scan + filtro
-     * en memoria.
+     * Busca un banco por BIN o número de cuenta completo (prefijo más largo).
+     * DynamoDB no soporta queries sobre nested lists, así que la resolución se hace
+     * contra el índice en memoria, cargado con un único scan.
+     * Con el índice cargado se resuelve directamente contra él: recorrer el trie
+     * cuesta menos que un acierto en el L1 y siempre está al día, porque se
+     * parcha en cada escritura. Las caches solo sirven mientras el índice no se
+     * ha cargado (arranque en frío), donde un acierto en Redis evita esperar al
+     * scan completo.
      */
     public Optional<InstitucionDTO> descubrirBancoPorBin(String bin) {
         log.info("Resolviendo BIN: {}", bin);
-        if (bin == null)
+        if (!esNumeroValido(bin)) {
+            rechazosFormato.increment();
             return Optional.empty();
-        String cacheKey = CACHE_KEY_PREFIX + bin;
+        }
 
-        try {
-            Object cacheData = redisTemplate.opsForValue().get(cacheKey);
-            if (cacheData instanceof InstitucionDTO) {
-                return Optional.of((InstitucionDTO) cacheData);
-            }
-        } catch (Exception e) {
-            log.warn("Redis no disponible para cache lookup: {}", e.getMessage());
+        if (!indiceEnrutamiento.estaCargado()) {
+            // El cargador carga el índice (una vez, en la primera carga que
+            // llegue) tras fallar también en Redis.
+            return cacheLookup.obtener(bin);
         }
+        Institucion inst = indiceEnrutamiento.resolver(bin);
+        if (inst == null) {
+            rechazosSinRuta.increment();
+            return Optional.empty();
+        }
+        return validarDisponibilidad(inst) ? Optional.of(disponible(mapper.toRutaDTO(inst))) : Optional.empty();
+    }
 
-        // Scan all institutions and filter by BIN prefix
-        return StreamSupport.stream(institucionRepositorio.findAll().spliterator(), false)
-                .filter(inst -> inst.getReglasEnrutamiento() != null &&
-                        inst.getReglasEnrutamiento().stream()
-                                .anyMatch(r -> bin.equals(r.getPrefijoBin())))
-                .filter(this::validarDisponibilidad)
-                .findFirst()
-                .map(inst -> {
-                    InstitucionDTO dto = mapper.toDTO(inst);
-                    try {
-                        redisTemplate.opsForValue().set(cacheKey, dto, Duration.ofHours(1));
-                    } catch (Exception e) {
-                        log.warn("Redis no disponible para guardar cache: {}", e.getMessage());
-                    }
-                    return dto;
-                });
+    /**
+     * Lookup para la respuesta HTTP: devuelve el JSON ya serializado de la
+     * versión indexada del banco, sin pasar por las caches de DTO. Mientras el
+     * índice no esté cargado se resuelve como {@link #descubrirBancoPorBin} y se
+     * serializa el resultado.
+     */
+    public Optional<byte[]> descubrirRutaSerializada(String bin) {
+        if (!esNumeroValido(bin)) {
+            rechazosFormato.increment();
+            return Optional.empty();
+        }
+        if (!indiceEnrutamiento.estaCargado()) {
+            return descubrirBancoPorBin(bin).map(respuestasLookup::serializar);
+        }
+        Institucion inst = indiceEnrutamiento.resolver(bin);
+        if (inst == null) {
+            rechazosSinRuta.increment();
+            return Optional.empty();
+        }
+        return validarDisponibilidad(inst)
+                ? Optional.of(respuestasLookup.obtener(inst, i -> disponible(mapper.toRutaDTO(i))))
+                : Optional.empty();
     }
 
-    public void registrarFallo(String bic) {
-        log.warn("Registrando fallo operativo para: {}", bic);
-        if (bic == null)
-            return;
+    /**
+     * Cargador de la cache de lookups: resolución contra el índice. {@code null}
+     * si no hay ruta o el banco no está disponible.
+     */
+    private InstitucionDTO resolverDesdeIndice(String bin) {
+        Institucion inst = indiceEnrutamiento.resolver(bin);
+        return inst != null && validarDisponibilidad(inst) ? disponible(mapper.toRutaDTO(inst)) : null;
+    }
 
-        institucionRepositorio.findByCodigoBic(bic).ifPresent(inst -> {
-            InterruptorCircuito interruptor = inst.getInterruptorCircuito();
-            if (interruptor == null) {
-                interruptor = new InterruptorCircuito(false, 0, null);
-                inst.setInterruptorCircuito(interruptor);
+    /**
+     * Resuelve muchos BINs de una vez. Devuelve solo los BINs resueltos a un
+     * banco disponible, en el orden de entrada. Como en el lookup individual, con
+     * el índice cargado se resuelve solo contra él, sin ida y vuelta a Redis; en
+     * frío, un MGET para lo cacheado, el índice (o el snapshot local) para el
+     * resto y un pipeline para cachear los nuevos.
+     */
+    public Map<String, InstitucionDTO> descubrirBancosPorBin(List<String> bins) {
+        validarLoteLookup(bins);
+        Set<String> unicos = bins.stream()
+                .filter(this::esNumeroValido)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        log.info("Resolviendo lote de {} BINs", unicos.size());
+
+        boolean cargado = indiceEnrutamiento.estaCargado();
+        Map<String, InstitucionDTO> cacheados = cargado ? Map.of() : cacheLookup.obtenerVarios(unicos);
+        Map<String, InstitucionDTO> nuevos = new HashMap<>();
+        Map<String, InstitucionDTO> dtoPorBic = new HashMap<>();
+        Map<String, InstitucionDTO> resultado = new LinkedHashMap<>();
+
+        for (String bin : unicos) {
+            InstitucionDTO dto = cacheados.get(bin);
+            if (dto == null) {
+                Institucion inst = indiceEnrutamiento.resolver(bin);
+                if (inst == null || !validarDisponibilidad(inst)) {
+                    continue;
+                }
+                dto = dtoPorBic.computeIfAbsent(inst.getCodigoBic(), k -> disponible(mapper.toRutaDTO(inst)));
+                nuevos.put(bin, dto);
             }
+            resultado.put(bin, dto);
+        }
 
-            interruptor.setFallosConsecutivos(interruptor.getFallosConsecutivos() + 1);
-            interruptor.setUltimoFallo(LocalDateTime.now(ZoneOffset.UTC));
-
-            if (interruptor.getFallosConsecutivos() >= 5) {
-                interruptor.setEstaAbierto(true);
-                log.error(">>> CIRCUIT BREAKER ACTIVADO para banco: {}", bic);
-                invalidarCacheDelBanco(inst);
-            }
+        if (!cargado) {
+            cacheLookup.guardarVarios(nuevos);
+        }
+        return resultado;
+    }
 
-            institucionRepositorio.save(inst);
-        });
+    /**
+     * Resuelve un lote en tramos y entrega cada tramo (sus BINs y los resueltos)
+     * en cuanto está, en el orden de entrada, para que la respuesta empiece a
+     * salir sin esperar al lote completo.
+     */
+    public void descubrirBancosPorBin(List<String> bins, BiConsumer<List<String>, Map<String, InstitucionDTO>> destino) {
+        validarLoteLookup(bins);
+        for (int desde = 0; desde < bins.size(); desde += tramoLoteLookup) {
+            List<String> tramo = bins.subList(desde, Math.min(bins.size(), desde + tramoLoteLookup));
+            destino.accept(tramo, descubrirBancosPorBin(tramo));
+        }
     }
 
-    private void invalidarCacheDelBanco(Institucion inst) {
-        if (inst.getReglasEnrutamiento() != null) {
-            inst.getReglasEnrutamiento().forEach(r -> {
-                try {
-                    redisTemplate.delete(CACHE_KEY_PREFIX + r.getPrefijoBin());
-                } catch (Exception e) {
-                    log.warn("Redis no disponible para invalidar cache: {}", e.getMessage());
-                }
-            });
+    /**
+     * Se comprueba antes de empezar a escribir la respuesta, cuando aún se puede
+     * devolver un 400.
+     */
+    public void validarLoteLookup(List<String> bins) {
+        if (bins.size() > maxLoteLookup) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxLoteLookup + " BINs");
         }
     }
 
-    private boolean validarDisponibilidad(@NonNull Institucion inst) {
-        InterruptorCircuito interruptor = inst.getInterruptorCircuito();
+    public void registrarFallo(String bic) {
+        log.warn("Registrando fallo operativo para: {}", bic);
+        if (bic == null)
+            return;
 
-        if (interruptor == null || !interruptor.isEstaAbierto()) {
-            return true;
-        }
+        motorInterruptor.registrarFallo(bic);
+    }
 
-        if (interruptor.getUltimoFallo() != null) {
-            long segundos = ChronoUnit.SECONDS.between(interruptor.getUltimoFallo(), LocalDateTime.now(ZoneOffset.UTC));
+    /**
+     * Encola un lote de resultados (éxitos y fallos) del switch; se aplican al
+     * interruptor en segundo plano. Un lote en el que ningún reporte trae bic y
+     * resultado es un error del cliente.
+     */
+    public AcuseReportesDTO reportarResultados(@NonNull List<ReporteResultadoDTO> reportes) {
+        if (reportes.size() > maxLoteReportes) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxLoteReportes + " reportes");
+        }
+        AcuseReportesDTO acuse = ingestaReportes.encolar(reportes);
+        if (!reportes.isEmpty() && acuse.getInvalidos() == reportes.size()) {
+            throw new IllegalArgumentException("Ningún reporte del lote trae bic y resultado");
+        }
+        return acuse;
+    }
 
-            if (segundos > 30) {
-                interruptor.setEstaAbierto(false);
-                interruptor.setFallosConsecutivos(0);
-                institucionRepositorio.save(inst);
-                log.info(">>> CIRCUIT BREAKER CERRADO (Auto-recuperación) para banco: {}", inst.getCodigoBic());
-                return true;
-            }
+    /**
+     * Un BIN o PAN son solo dígitos y como mucho {@value #MAX_DIGITOS_PAN}.
+     */
+    private boolean esNumeroValido(String numero) {
+        if (numero == null || numero.isEmpty() || numero.length() > MAX_DIGITOS_PAN) {
             return false;
         }
+        for (int i = 0; i < numero.length(); i++) {
+            char c = numero.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean validarDisponibilidad(@NonNull Institucion inst) {
+        return motorInterruptor.permiteTrafico(inst.getInterruptorCircuito());
+    }
 
-        return false;
+    /**
+     * Ajusta el DTO de una institución que ya pasó {@link #validarDisponibilidad}:
+     * si el interruptor sigue abierto en BD es porque está semiabierto, y se
+     * expone como cerrado hasta que el cierre se persista.
+     */
+    private static InstitucionDTO disponible(InstitucionDTO dto) {
+        if (dto.getInterruptorCircuito() != null && dto.getInterruptorCircuito().isEstaAbierto()) {
+            dto.getInterruptorCircuito().setEstaAbierto(false);
+            dto.getInterruptorCircuito().setFallosConsecutivos(0);
+        }
+        return dto;
     }
 
     public InstitucionDTO actualizarParametrosRestringidos(String bic, String nuevoEstado, String nuevaUrl) {
@@ -209,10 +448,32 @@ public class DirectorioServicio {
 
         if (nuevaUrl != null && !nuevaUrl.isBlank()) {
             inst.setUrlDestino(nuevaUrl);
+        } else {
+            nuevaUrl = null;
+        }
+        if (nuevoEstado == null && nuevaUrl == null) {
+            return mapper.toDTO(inst);
         }
 
-        invalidarCacheDelBanco(inst);
+        // Solo los atributos cambiados: una reescritura completa perdería reglas
+        // añadidas en paralelo por el coalescedor.
+        Institucion saved;
+        try {
+            saved = parcialRepositorio.actualizarParametros(inst.getId(),
+                    nuevoEstado == null ? null : inst.getEstadoOperativo(), nuevaUrl).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+        indiceEnrutamiento.actualizar(saved);
+        cacheLookup.invalidar(bic);
+        InstitucionDTO resultado = mapper.toDTO(saved);
+        registroCambios.registrar(CambioDirectorioDTO.Tipo.PARAMETROS, resultado);
+        return resultado;
+    }
 
-        return mapper.toDTO(institucionRepositorio.save(inst));
+    /**
+     * Página del listado con el cursor de la siguiente, {@code null} si es la última.
+     */
+    public record PaginaDirectorio(List<InstitucionDTO> instituciones, String cursor) {
     }
 }
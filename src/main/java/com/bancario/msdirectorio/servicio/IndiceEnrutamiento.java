@@ -0,0 +1,442 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice en memoria de las reglas de enrutamiento (prefijo BIN -> institución).
+ * Se carga con un único scan de la tabla y luego se parcha en cada escritura,
+ * de modo que el lookup no vuelve a tocar DynamoDB. Los scans (carga y
+ * refresco) son de lectura fuerte, y los parches aplicados mientras un scan
+ * está en curso sobreviven al cambio de tabla: el scan pudo leer el ítem antes
+ * de la escritura.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndiceEnrutamiento {
+
+    private final InstitucionRepositorio institucionRepositorio;
+    private final SnapshotRutasLocal snapshotLocal;
+
+    private volatile Tabla tabla;
+    private final AtomicLong version = new AtomicLong();
+    private volatile long versionGuardada;
+    // ReentrantLock y no synchronized: la carga hace I/O contra DynamoDB y un monitor
+    // retenido durante I/O fija el hilo virtual a su carrier.
+    private final ReentrantLock escritura = new ReentrantLock();
+    private final ReentrantLock carga = new ReentrantLock();
+    // Último parche de cada BIC con la versión en que se aplicó. Protegido por
+    // escritura; se vacía al sustituir la tabla tras un scan.
+    private final Map<String, Parche> parches = new HashMap<>();
+
+    /**
+     * Coincidencia por prefijo más largo sobre un BIN o número de cuenta
+     * completo. Recorre solo los dígitos del número y no reserva memoria.
+     * Mientras el índice no está cargado se resuelve contra el snapshot local si
+     * lo hay, sin esperar a DynamoDB; si no, la primera llamada lo carga.
+     */
+    public Institucion resolver(String numero) {
+        Tabla actual = tabla;
+        if (actual == null) {
+            if (snapshotLocal.disponible()) {
+                return snapshotLocal.resolver(numero);
+            }
+            actual = cargar();
+        }
+        return actual.resolver(numero);
+    }
+
+    /**
+     * Institución indexada para el BIC, o {@code null} si no existe o el índice
+     * aún no se ha cargado.
+     */
+    public Institucion buscarPorBic(String bic) {
+        Tabla actual = tabla;
+        return actual == null ? null : actual.porBic.get(bic);
+    }
+
+    public Collection<Institucion> instituciones() {
+        Tabla actual = tabla;
+        return actual == null ? List.of() : actual.porBic.values();
+    }
+
+    public boolean estaCargado() {
+        return tabla != null;
+    }
+
+    /**
+     * El lookup se está sirviendo desde el snapshot local a la espera de la carga.
+     */
+    public boolean enrutaDesdeSnapshotLocal() {
+        return tabla == null && snapshotLocal.disponible();
+    }
+
+    /**
+     * Carga el índice si aún no se ha hecho y devuelve su versión, que cambia cada
+     * vez que se reconstruye o se parcha.
+     */
+    public long asegurarCargado() {
+        if (tabla == null) {
+            cargar();
+        }
+        return version.get();
+    }
+
+    public void reconstruir(Iterable<Institucion> instituciones) {
+        reconstruir(instituciones, Long.MAX_VALUE);
+    }
+
+    /**
+     * Sustituye la tabla por el resultado de un scan que empezó con el índice en
+     * la versión {@code inicio}: los parches posteriores se conservan sobre lo
+     * escaneado.
+     */
+    private void reconstruir(Iterable<Institucion> instituciones, long inicio) {
+        Map<String, Institucion> porBic = new LinkedHashMap<>();
+        for (Institucion inst : instituciones) {
+            if (inst.getCodigoBic() != null) {
+                porBic.putIfAbsent(inst.getCodigoBic(), inst);
+            }
+        }
+        escritura.lock();
+        try {
+            parches.forEach((bic, parche) -> {
+                if (parche.version() > inicio) {
+                    porBic.put(bic, parche.institucion());
+                }
+            });
+            parches.clear();
+            tabla = Tabla.construir(porBic);
+            version.incrementAndGet();
+        } finally {
+            escritura.unlock();
+        }
+        snapshotLocal.liberar();
+        log.info("Índice de enrutamiento reconstruido: {} instituciones, {} prefijos",
+                porBic.size(), tabla.prefijos);
+    }
+
+    /**
+     * Sustituye la institución en el índice tras una escritura. Si el índice aún no
+     * se ha cargado solo se anota, por si la carga en curso leyó el dato anterior.
+     * Solo se reconstruye el trie si al banco se le quitaron o cambiaron reglas; el
+     * caso habitual (interruptor, parámetros, reglas añadidas) se parcha.
+     */
+    public void actualizar(Institucion inst) {
+        if (inst == null || inst.getCodigoBic() == null) {
+            return;
+        }
+        escritura.lock();
+        try {
+            parches.put(inst.getCodigoBic(), new Parche(version.incrementAndGet(), inst));
+            if (tabla == null) {
+                return;
+            }
+            Tabla parchada = tabla.parchear(inst);
+            if (parchada == null) {
+                Map<String, Institucion> porBic = new LinkedHashMap<>(tabla.porBic);
+                porBic.put(inst.getCodigoBic(), inst);
+                parchada = Tabla.construir(porBic);
+            }
+            tabla = parchada;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * BICs que resuelven hoy alguno de {@code prefijos}, sin contar {@code bic}:
+     * sus entradas cacheadas bajo esos prefijos quedan obsoletas cuando
+     * {@code bic} los da de alta.
+     */
+    public Set<String> propietarios(Collection<String> prefijos, String bic) {
+        Set<String> anteriores = new LinkedHashSet<>();
+        for (String prefijo : prefijos) {
+            Institucion anterior = resolver(prefijo);
+            if (anterior != null && !anterior.getCodigoBic().equals(bic)) {
+                anteriores.add(anterior.getCodigoBic());
+            }
+        }
+        return anteriores;
+    }
+
+    /**
+     * Relee una institución desde DynamoDB, p. ej. tras una invalidación emitida por
+     * otra réplica o una transición del interruptor, y devuelve lo leído
+     * ({@code null} si no existe o la lectura falló). Si ya está indexada se lee
+     * por clave con lectura fuerte, de modo que refleja la escritura que motivó
+     * la recarga; un banco nuevo solo se puede buscar por el GSI, y si aún no
+     * aparece lo recoge el refresco periódico.
+     */
+    public Institucion recargar(String bic) {
+        Tabla actual = tabla;
+        if (actual == null) {
+            return null;
+        }
+        try {
+            Institucion indexada = actual.porBic.get(bic);
+            Optional<Institucion> leida = indexada != null
+                    ? institucionRepositorio.findByIdConsistente(indexada.getId())
+                    : institucionRepositorio.findByCodigoBic(bic);
+            leida.ifPresent(this::actualizar);
+            return leida.orElse(null);
+        } catch (Exception e) {
+            log.warn("No se pudo recargar {} en el índice de enrutamiento: {}", bic, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Relee la tabla periódicamente para recoger cambios hechos por otras réplicas.
+     * Si se está enrutando con el snapshot local, reintenta la carga inicial.
+     */
+    @Scheduled(fixedDelayString = "${directorio.indice.refresco-ms:60000}")
+    public void refrescar() {
+        if (tabla == null && !snapshotLocal.disponible()) {
+            return;
+        }
+        carga.lock();
+        try {
+            escanear();
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar el índice de enrutamiento: {}", e.getMessage());
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /**
+     * Vuelca la tabla al snapshot local si cambió desde el último volcado.
+     */
+    @Scheduled(fixedDelayString = "${directorio.snapshot-local.guardado-ms:30000}")
+    public void guardarSnapshotLocal() {
+        long v = version.get();
+        Tabla actual = tabla;
+        if (actual == null || v == versionGuardada) {
+            return;
+        }
+        try {
+            snapshotLocal.guardar(actual.hijos, actual.destino, actual.instituciones);
+            versionGuardada = v;
+        } catch (Exception e) {
+            log.warn("No se pudo guardar el snapshot local de rutas: {}", e.getMessage());
+        }
+    }
+
+    private Tabla cargar() {
+        carga.lock();
+        try {
+            if (tabla == null) {
+                escanear();
+            }
+            return tabla;
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /**
+     * Scan completo con lectura fuerte. Se llama con {@code carga} retenido, así
+     * que no hay dos scans a la vez.
+     */
+    private void escanear() {
+        long inicio = version.get();
+        reconstruir(institucionRepositorio.findAllConsistente(), inicio);
+    }
+
+    private record Parche(long version, Institucion institucion) {
+    }
+
+    /**
+     * Trie de dígitos inmutable codificado en arreglos primitivos. El nodo 0 es la
+     * raíz, por lo que un hijo con valor 0 significa "sin hijo".
+     */
+    static final class Tabla {
+
+        private static final int RADIX = 10;
+
+        private final int[] hijos;
+        private final int[] destino;
+        private final Institucion[] instituciones;
+        private final Map<String, Institucion> porBic;
+        private final int prefijos;
+
+        private Tabla(int[] hijos, int[] destino, Institucion[] instituciones,
+                Map<String, Institucion> porBic, int prefijos) {
+            this.hijos = hijos;
+            this.destino = destino;
+            this.instituciones = instituciones;
+            this.porBic = porBic;
+            this.prefijos = prefijos;
+        }
+
+        Institucion resolver(String numero) {
+            if (numero == null) {
+                return null;
+            }
+            int nodo = 0;
+            int mejor = destino[0];
+            for (int i = 0; i < numero.length(); i++) {
+                int digito = numero.charAt(i) - '0';
+                if (digito < 0 || digito >= RADIX) {
+                    break;
+                }
+                nodo = hijos[nodo * RADIX + digito];
+                if (nodo == 0) {
+                    break;
+                }
+                if (destino[nodo] >= 0) {
+                    mejor = destino[nodo];
+                }
+            }
+            return mejor >= 0 ? instituciones[mejor] : null;
+        }
+
+        static Tabla construir(Map<String, Institucion> porBic) {
+            Institucion[] instituciones = porBic.values().toArray(new Institucion[0]);
+            Constructor constructor = new Constructor(new int[RADIX * 64], new int[64], 1, 0);
+            Arrays.fill(constructor.destino, -1);
+            for (int idx = 0; idx < instituciones.length; idx++) {
+                constructor.insertar(instituciones, idx, reglas(instituciones[idx]));
+            }
+            return constructor.tabla(instituciones, porBic);
+        }
+
+        /**
+         * Tabla con {@code inst} sustituida o añadida sin recorrer el resto de
+         * prefijos: si sus reglas no cambian solo se cambia la referencia (los
+         * arreglos del trie se comparten, son inmutables), y si se añadieron al
+         * final se insertan solo las nuevas sobre una copia. {@code null} si se
+         * quitaron o cambiaron reglas y hay que reconstruir.
+         */
+        Tabla parchear(Institucion inst) {
+            int idx = 0;
+            while (idx < instituciones.length && !instituciones[idx].getCodigoBic().equals(inst.getCodigoBic())) {
+                idx++;
+            }
+            List<ReglaEnrutamiento> anteriores = idx < instituciones.length ? reglas(instituciones[idx]) : List.of();
+            List<ReglaEnrutamiento> nuevas = reglas(inst);
+            if (nuevas.size() < anteriores.size()) {
+                return null;
+            }
+            for (int i = 0; i < anteriores.size(); i++) {
+                if (!Objects.equals(anteriores.get(i).getPrefijoBin(), nuevas.get(i).getPrefijoBin())) {
+                    return null;
+                }
+            }
+
+            Institucion[] copia = Arrays.copyOf(instituciones, Math.max(instituciones.length, idx + 1));
+            copia[idx] = inst;
+            Map<String, Institucion> bics = new LinkedHashMap<>(porBic);
+            bics.put(inst.getCodigoBic(), inst);
+            if (nuevas.size() == anteriores.size()) {
+                return new Tabla(hijos, destino, copia, bics, prefijos);
+            }
+            int nodos = destino.length;
+            Constructor constructor = new Constructor(Arrays.copyOf(hijos, (nodos + 64) * RADIX),
+                    Arrays.copyOf(destino, nodos + 64), nodos, prefijos);
+            Arrays.fill(constructor.destino, nodos, constructor.destino.length, -1);
+            constructor.insertar(copia, idx, nuevas.subList(anteriores.size(), nuevas.size()));
+            return constructor.tabla(copia, bics);
+        }
+
+        private static List<ReglaEnrutamiento> reglas(Institucion inst) {
+            return inst.getReglasEnrutamiento() == null ? List.of() : inst.getReglasEnrutamiento();
+        }
+
+        /**
+         * Trie en construcción. Un prefijo repetido es del banco de menor
+         * posición, igual que si se insertaran todos en orden: así parchar y
+         * reconstruir dan la misma tabla.
+         */
+        private static final class Constructor {
+
+            private int[] hijos;
+            private int[] destino;
+            private int nodos;
+            private int prefijos;
+
+            Constructor(int[] hijos, int[] destino, int nodos, int prefijos) {
+                this.hijos = hijos;
+                this.destino = destino;
+                this.nodos = nodos;
+                this.prefijos = prefijos;
+            }
+
+            void insertar(Institucion[] instituciones, int idx, List<ReglaEnrutamiento> reglas) {
+                Institucion inst = instituciones[idx];
+                for (ReglaEnrutamiento regla : reglas) {
+                    String prefijo = regla.getPrefijoBin();
+                    if (!esNumerico(prefijo)) {
+                        log.warn("Prefijo BIN no numérico ignorado en {}: {}", inst.getCodigoBic(), prefijo);
+                        continue;
+                    }
+                    int nodo = 0;
+                    for (int i = 0; i < prefijo.length(); i++) {
+                        int pos = nodo * RADIX + (prefijo.charAt(i) - '0');
+                        if (hijos[pos] == 0) {
+                            if (nodos == destino.length) {
+                                destino = Arrays.copyOf(destino, nodos * 2);
+                                Arrays.fill(destino, nodos, destino.length, -1);
+                                hijos = Arrays.copyOf(hijos, nodos * 2 * RADIX);
+                            }
+                            hijos[pos] = nodos++;
+                        }
+                        nodo = hijos[pos];
+                    }
+                    int actual = destino[nodo];
+                    if (actual < 0) {
+                        destino[nodo] = idx;
+                        prefijos++;
+                    } else if (actual > idx) {
+                        log.warn("Prefijo BIN {} duplicado: se mantiene {} e ignora {}", prefijo,
+                                inst.getCodigoBic(), instituciones[actual].getCodigoBic());
+                        destino[nodo] = idx;
+                    } else if (actual != idx) {
+                        log.warn("Prefijo BIN {} duplicado: se mantiene {} e ignora {}", prefijo,
+                                instituciones[actual].getCodigoBic(), inst.getCodigoBic());
+                    }
+                }
+            }
+
+            Tabla tabla(Institucion[] instituciones, Map<String, Institucion> porBic) {
+                return new Tabla(Arrays.copyOf(hijos, nodos * RADIX), Arrays.copyOf(destino, nodos),
+                        instituciones, porBic, prefijos);
+            }
+        }
+
+        private static boolean esNumerico(String prefijo) {
+            if (prefijo == null || prefijo.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < prefijo.length(); i++) {
+                char c = prefijo.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.dto.AcuseReportesDTO;
+import com.bancario.msdirectorio.dto.ReporteResultadoDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ingesta asíncrona de los resultados que reporta el switch. Los reportes se
+ * encolan en un buffer circular acotado y la petición vuelve sin esperar a
+ * nada; un único consumidor los drena, los agrega por BIC y los aplica al
+ * motor del interruptor de una vez por banco. Con la cola llena se descarta
+ * lo que no cabe en lugar de frenar al switch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestaReportes {
+
+    private final MotorInterruptor motorInterruptor;
+    private final IndiceEnrutamiento indiceEnrutamiento;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${directorio.reportes.capacidad:65536}")
+    private int capacidad;
+
+    @Value("${directorio.reportes.max-por-pasada:16384}")
+    private int maxPorPasada;
+
+    private ArrayBlockingQueue<ReporteResultadoDTO> anillo;
+    private final Map<String, Timer> latencias = new ConcurrentHashMap<>();
+    private Counter descartadosColaLlena;
+    private Counter descartadosInvalidos;
+    private Counter descartadosDesconocidos;
+
+    @PostConstruct
+    void init() {
+        anillo = new ArrayBlockingQueue<>(capacidad);
+        descartadosColaLlena = meterRegistry.counter("directorio.reportes.descartados", "motivo", "cola_llena");
+        descartadosInvalidos = meterRegistry.counter("directorio.reportes.descartados", "motivo", "invalido");
+        descartadosDesconocidos = meterRegistry.counter("directorio.reportes.descartados", "motivo", "bic_desconocido");
+        meterRegistry.gauge("directorio.reportes.pendientes", anillo, ArrayBlockingQueue::size);
+    }
+
+    /**
+     * Encola los reportes válidos sin bloquear. Los incompletos y los que no caben
+     * se cuentan por separado.
+     */
+    public AcuseReportesDTO encolar(List<ReporteResultadoDTO> reportes) {
+        int aceptados = 0;
+        int colaLlena = 0;
+        int invalidos = 0;
+        for (ReporteResultadoDTO reporte : reportes) {
+            if (reporte == null || reporte.getBic() == null || reporte.getResultado() == null) {
+                invalidos++;
+            } else if (anillo.offer(reporte)) {
+                aceptados++;
+            } else {
+                colaLlena++;
+            }
+        }
+        if (colaLlena > 0) {
+            descartadosColaLlena.increment(colaLlena);
+        }
+        if (invalidos > 0) {
+            descartadosInvalidos.increment(invalidos);
+        }
+        return new AcuseReportesDTO(aceptados, colaLlena, invalidos);
+    }
+
+    /**
+     * Consumidor único: la tarea programada no se solapa consigo misma. Por banco,
+     * un éxito reinicia los fallos consecutivos y solo cuentan los fallos
+     * reportados después del último éxito del lote. Con el índice cargado se
+     * descartan los BIC que no están en él: el BIC es texto libre del switch y no
+     * debe crear contadores, series de métricas ni consultas a DynamoDB.
+     */
+    @Scheduled(fixedDelayString = "${directorio.reportes.flush-ms:100}")
+    public void consumir() {
+        List<ReporteResultadoDTO> lote = new ArrayList<>();
+        while (anillo.drainTo(lote, maxPorPasada) > 0) {
+            Map<String, Agregado> porBic = new HashMap<>();
+            boolean filtrar = indiceEnrutamiento.estaCargado();
+            for (ReporteResultadoDTO reporte : lote) {
+                boolean conocido = indiceEnrutamiento.buscarPorBic(reporte.getBic()) != null;
+                if (filtrar && !conocido) {
+                    descartadosDesconocidos.increment();
+                    continue;
+                }
+                Agregado agregado = porBic.computeIfAbsent(reporte.getBic(), b -> new Agregado());
+                if (reporte.getResultado() == ReporteResultadoDTO.Resultado.EXITO) {
+                    agregado.exito = true;
+                    agregado.fallos = 0;
+                } else {
+                    agregado.fallos++;
+                }
+                if (conocido && reporte.getLatenciaMs() != null && reporte.getLatenciaMs() >= 0) {
+                    latencia(reporte.getBic()).record(Duration.ofMillis(reporte.getLatenciaMs()));
+                }
+            }
+            porBic.forEach((bic, agregado) -> {
+                if (agregado.exito) {
+                    motorInterruptor.registrarExito(bic);
+                }
+                if (agregado.fallos > 0) {
+                    motorInterruptor.registrarFallos(bic, agregado.fallos);
+                }
+            });
+            log.debug("Aplicados {} reportes de {} bancos", lote.size(), porBic.size());
+            lote.clear();
+        }
+    }
+
+    private Timer latencia(String bic) {
+        return latencias.computeIfAbsent(bic, b -> Timer.builder("directorio.destino.latencia")
+                .description("Latencia reportada por el switch para el banco destino")
+                .tag("bic", b)
+                .register(meterRegistry));
+    }
+
+    private static final class Agregado {
+        boolean exito;
+        int fallos;
+    }
+}
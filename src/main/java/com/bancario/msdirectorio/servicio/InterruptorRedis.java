@@ -0,0 +1,98 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker de la cache en Redis. Tras {@code umbral-errores} errores o
+ * timeouts seguidos se abre y la cache deja de llamar a Redis: los lookups van
+ * directos al índice en memoria sin esperar ningún timeout. Pasado el
+ * enfriamiento, un sondeo en segundo plano (PING) decide si se cierra; las
+ * peticiones nunca hacen de sonda.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InterruptorRedis {
+
+    private final RedisTemplate<String, InstitucionDTO> lookupRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicInteger erroresSeguidos = new AtomicInteger();
+    private final List<Runnable> alRecuperar = new CopyOnWriteArrayList<>();
+    // 0 = cerrado; si no, instante (ms) a partir del cual se puede sondear.
+    private volatile long abiertoHasta;
+
+    @Value("${directorio.cache.redis.umbral-errores:3}")
+    private int umbralErrores;
+
+    @Value("${directorio.cache.redis.enfriamiento-ms:5000}")
+    private long enfriamientoMs;
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("directorio.redis.interruptor.abierto", this, i -> i.abiertoHasta == 0 ? 0 : 1);
+    }
+
+    public boolean permite() {
+        return abiertoHasta == 0;
+    }
+
+    public void exito() {
+        if (erroresSeguidos.get() != 0) {
+            erroresSeguidos.set(0);
+        }
+    }
+
+    public void fallo() {
+        if (erroresSeguidos.incrementAndGet() >= umbralErrores && abiertoHasta == 0) {
+            abiertoHasta = System.currentTimeMillis() + enfriamientoMs;
+            meterRegistry.counter("directorio.redis.interruptor.transiciones", "transicion", "apertura").increment();
+            log.error(">>> Cache Redis desactivada tras {} errores seguidos; se sondeará en {} ms", erroresSeguidos.get(),
+                    enfriamientoMs);
+        }
+    }
+
+    /**
+     * Acción a ejecutar cada vez que Redis vuelve, p. ej. reintentar las
+     * invalidaciones que no se pudieron aplicar mientras estaba caído.
+     */
+    public void alRecuperar(Runnable accion) {
+        alRecuperar.add(accion);
+    }
+
+    @Scheduled(fixedDelayString = "${directorio.cache.redis.sondeo-ms:1000}")
+    public void sondear() {
+        long hasta = abiertoHasta;
+        if (hasta == 0 || System.currentTimeMillis() < hasta) {
+            return;
+        }
+        try {
+            lookupRedisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+        } catch (Exception e) {
+            abiertoHasta = System.currentTimeMillis() + enfriamientoMs;
+            log.debug("Redis sigue sin responder: {}", e.getMessage());
+            return;
+        }
+        erroresSeguidos.set(0);
+        abiertoHasta = 0;
+        meterRegistry.counter("directorio.redis.interruptor.transiciones", "transicion", "cierre").increment();
+        log.info(">>> Cache Redis reactivada");
+        alRecuperar.forEach(Runnable::run);
+    }
+}
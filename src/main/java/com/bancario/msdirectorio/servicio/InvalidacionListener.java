@@ -0,0 +1,72 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recibe las invalidaciones publicadas por otras réplicas: limpia el L1 y
+ * refresca la institución en el índice de enrutamiento local.
+ * La suscripción se reintenta en segundo plano para que el servicio arranque
+ * aunque Redis no esté disponible.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvalidacionListener implements MessageListener {
+
+    private final RedisConnectionFactory connectionFactory;
+    private final CacheLookup cacheLookup;
+    private final IndiceEnrutamiento indiceEnrutamiento;
+    private final MeterRegistry meterRegistry;
+
+    private RedisMessageListenerContainer container;
+
+    @PostConstruct
+    void init() {
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(this, new ChannelTopic(CacheLookup.CANAL_INVALIDACION));
+        container.afterPropertiesSet();
+    }
+
+    @Scheduled(fixedDelayString = "${directorio.cache.invalidacion.reintento-ms:30000}")
+    public void suscribir() {
+        if (container.isListening()) {
+            return;
+        }
+        try {
+            container.stop();
+            container.start();
+            log.info("Suscrito al canal de invalidación {}", CacheLookup.CANAL_INVALIDACION);
+        } catch (Exception e) {
+            meterRegistry.counter(CacheLookup.METRICA_ERRORES_REDIS, "operacion", "suscribir").increment();
+            log.warn("Redis no disponible para suscribirse a invalidaciones: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String bic = cacheLookup.recibirInvalidacion(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (bic != null) {
+            indiceEnrutamiento.recargar(bic);
+        }
+    }
+
+    @PreDestroy
+    void cerrar() throws Exception {
+        container.destroy();
+    }
+}
@@ -0,0 +1,346 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.dto.CambioDirectorioDTO;
+import com.bancario.msdirectorio.mapper.InstitucionMapper;
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.InterruptorCircuito;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+import com.bancario.msdirectorio.repositorio.InterruptorCircuitoRepositorio;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Motor del circuit breaker. Los fallos se cuentan en memoria sin bloqueos
+ * (ventana deslizante por BIC) y se vuelcan periódicamente a DynamoDB con un
+ * único UpdateItem atómico por banco, de modo que una ráfaga de N fallos
+ * cuesta una escritura y no N lecturas + N reescrituras del ítem.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MotorInterruptor {
+
+    private static final int CUBETAS = 10;
+
+    private final InterruptorCircuitoRepositorio interruptorRepositorio;
+    private final InstitucionRepositorio institucionRepositorio;
+    private final IndiceEnrutamiento indiceEnrutamiento;
+    private final CacheLookup cacheLookup;
+    private final RegistroCambios registroCambios;
+    private final InstitucionMapper mapper;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, Contador> contadores = new ConcurrentHashMap<>();
+
+    @Value("${directorio.interruptor.umbral-fallos:5}")
+    private int umbralFallos;
+
+    @Value("${directorio.interruptor.ventana-segundos:60}")
+    private long ventanaSegundos;
+
+    @Value("${directorio.interruptor.recuperacion-segundos:30}")
+    private long recuperacionSegundos;
+
+    public void registrarFallo(String bic) {
+        registrarFallos(bic, 1);
+    }
+
+    public void registrarFallos(String bic, int fallos) {
+        long ahora = System.currentTimeMillis();
+        contadores.computeIfAbsent(bic, b -> new Contador()).registrar(ahora, anchoCubeta(), fallos);
+    }
+
+    /**
+     * Un éxito rompe la racha: se vacía la ventana y lo pendiente, y el siguiente
+     * volcado pone a cero los fallos consecutivos en DynamoDB si el interruptor
+     * está cerrado. El reinicio se encola siempre, aunque esta réplica no haya
+     * visto fallos: los pudo sumar otra y la copia del índice no refleja
+     * {@code sumarFallos}. La escritura es condicional, así que sin fallos no
+     * cambia nada, y cuesta como mucho una por banco y volcado.
+     */
+    public void registrarExito(String bic) {
+        contadores.computeIfAbsent(bic, b -> new Contador()).reiniciar();
+    }
+
+    /**
+     * Decide si un banco acepta tráfico solo a partir de los timestamps: abierto y
+     * con el último fallo dentro del periodo de recuperación significa no
+     * disponible; pasado ese periodo se trata como semiabierto. No escribe nada;
+     * el cierre durable lo hace {@link #cerrarRecuperados()}.
+     */
+    public boolean permiteTrafico(InterruptorCircuito interruptor) {
+        if (interruptor == null || !interruptor.isEstaAbierto()) {
+            return true;
+        }
+        return interruptor.getUltimoFallo() != null && recuperacionVencida(interruptor.getUltimoFallo());
+    }
+
+    /**
+     * Fallos registrados por esta réplica dentro de la ventana deslizante.
+     */
+    public int fallosRecientes(String bic) {
+        Contador contador = contadores.get(bic);
+        return contador == null ? 0 : contador.enVentana(System.currentTimeMillis(), anchoCubeta());
+    }
+
+    /**
+     * Vuelca los fallos y reinicios pendientes. Los UpdateItem de todos los bancos se lanzan
+     * a la vez sobre el cliente asíncrono y los efectos (índice, cache, log de
+     * cambios) se aplican después, en este hilo.
+     */
+    @Scheduled(fixedDelayString = "${directorio.interruptor.flush-ms:500}")
+    public void persistir() {
+        Map<String, CompletableFuture<Boolean>> enVuelo = new HashMap<>();
+        Map<String, Integer> volcados = new HashMap<>();
+        Set<String> reinicios = new HashSet<>();
+        contadores.forEach((bic, contador) -> {
+            boolean reinicio = contador.reinicioPendiente.getAndSet(false);
+            int pendientes = contador.pendientes.getAndSet(0);
+            if (pendientes == 0 && !reinicio) {
+                return;
+            }
+            try {
+                CompletableFuture<Boolean> apertura = aplicar(bic, contador, pendientes, reinicio);
+                if (apertura != null) {
+                    enVuelo.put(bic, apertura);
+                    volcados.put(bic, pendientes);
+                    if (reinicio) {
+                        reinicios.add(bic);
+                    }
+                }
+            } catch (Exception e) {
+                contador.devolver(pendientes, reinicio);
+                log.warn("No se pudieron persistir {} fallos de {}: {}", pendientes, bic, e.getMessage());
+            }
+        });
+
+        enVuelo.forEach((bic, apertura) -> {
+            try {
+                if (apertura.join()) {
+                    log.error(">>> CIRCUIT BREAKER ACTIVADO para banco: {}", bic);
+                    contarTransicion(bic, "apertura");
+                    Institucion abierta = trasTransicion(bic, true);
+                    cacheLookup.invalidar(bic);
+                    registrarCambio(abierta);
+                }
+            } catch (Exception e) {
+                Contador contador = contadores.get(bic);
+                if (contador != null) {
+                    // El reinicio es idempotente: se repite por si no llegó a aplicarse.
+                    contador.devolver(volcados.get(bic), reinicios.contains(bic));
+                }
+                log.warn("No se pudieron persistir {} fallos de {}: {}", volcados.get(bic), bic,
+                        e instanceof CompletionException && e.getCause() != null ? e.getCause().getMessage()
+                                : e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Persiste el cierre de los interruptores cuyo periodo de recuperación venció.
+     * La escritura es condicional, así que entre réplicas solo una lo aplica. Al
+     * cerrarse (aquí o en otra réplica) se vacía la ventana local: los fallos que
+     * abrieron el interruptor no deben volver a abrirlo con el primer fallo nuevo.
+     */
+    @Scheduled(fixedDelayString = "${directorio.interruptor.recuperacion-check-ms:1000}")
+    public void cerrarRecuperados() {
+        Map<Institucion, CompletableFuture<Boolean>> cierres = new HashMap<>();
+        for (Institucion inst : indiceEnrutamiento.instituciones()) {
+            InterruptorCircuito interruptor = inst.getInterruptorCircuito();
+            if (interruptor == null || !interruptor.isEstaAbierto() || interruptor.getUltimoFallo() == null
+                    || !recuperacionVencida(interruptor.getUltimoFallo())) {
+                continue;
+            }
+            cierres.put(inst, interruptorRepositorio.cerrar(inst.getId(), interruptor.getUltimoFallo()));
+        }
+
+        cierres.forEach((inst, cierre) -> {
+            try {
+                if (cierre.join()) {
+                    log.info(">>> CIRCUIT BREAKER CERRADO (Auto-recuperación) para banco: {}", inst.getCodigoBic());
+                    contarTransicion(inst.getCodigoBic(), "cierre");
+                    vaciarVentana(inst.getCodigoBic());
+                    Institucion cerrada = trasTransicion(inst.getCodigoBic(), false);
+                    cacheLookup.invalidar(inst.getCodigoBic());
+                    registrarCambio(cerrada);
+                } else {
+                    Institucion releida = indiceEnrutamiento.recargar(inst.getCodigoBic());
+                    if (releida != null && (releida.getInterruptorCircuito() == null
+                            || !releida.getInterruptorCircuito().isEstaAbierto())) {
+                        vaciarVentana(inst.getCodigoBic());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("No se pudo cerrar el interruptor de {}: {}", inst.getCodigoBic(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Lanza el reinicio de la racha (si hubo un éxito), la suma de fallos y, si
+     * se supera el umbral, la apertura condicional. Devuelve {@code null} si el
+     * BIC no existe. Solo se consulta DynamoDB mientras el índice no ha cargado;
+     * después, lo que no está en el índice no existe.
+     */
+    private CompletableFuture<Boolean> aplicar(String bic, Contador contador, int pendientes, boolean reinicio) {
+        Institucion inst = indiceEnrutamiento.buscarPorBic(bic);
+        if (inst == null && !indiceEnrutamiento.estaCargado()) {
+            inst = institucionRepositorio.findByCodigoBic(bic).orElse(null);
+        }
+        if (inst == null) {
+            log.debug("Fallos descartados para BIC desconocido: {}", bic);
+            contadores.remove(bic, contador);
+            return null;
+        }
+
+        String id = inst.getId();
+        LocalDateTime ultimoFallo = LocalDateTime.ofInstant(Instant.ofEpochMilli(contador.ultimoFalloMs), ZoneOffset.UTC);
+        boolean superaVentana = fallosRecientes(bic) >= umbralFallos;
+        CompletableFuture<Boolean> previo = reinicio ? interruptorRepositorio.reiniciarFallos(id)
+                : CompletableFuture.completedFuture(false);
+        if (pendientes == 0) {
+            return previo.thenApply(reiniciado -> false);
+        }
+        return previo
+                .thenCompose(reiniciado -> interruptorRepositorio.sumarFallos(id, pendientes, ultimoFallo))
+                .thenCompose(total -> total >= umbralFallos || superaVentana
+                        ? interruptorRepositorio.abrir(id, ultimoFallo)
+                        : CompletableFuture.completedFuture(false));
+    }
+
+    /**
+     * Estado del banco después de una transición que esta réplica acaba de
+     * escribir. Se relee con lectura fuerte; si la lectura falla se aplica la
+     * transición sobre la copia indexada, para que ni el índice ni el registro de
+     * cambios se queden con el estado anterior.
+     */
+    private Institucion trasTransicion(String bic, boolean abierto) {
+        Institucion releida = indiceEnrutamiento.recargar(bic);
+        if (releida != null) {
+            return releida;
+        }
+        Institucion indexada = indiceEnrutamiento.buscarPorBic(bic);
+        if (indexada == null) {
+            return null;
+        }
+        InterruptorCircuito previo = indexada.getInterruptorCircuito();
+        int fallos = !abierto || previo == null ? 0 : previo.getFallosConsecutivos();
+        LocalDateTime ultimoFallo = previo == null ? null : previo.getUltimoFallo();
+        Institucion transicion = new Institucion(indexada.getId(), indexada.getCodigoBic(), indexada.getNombre(),
+                indexada.getUrlDestino(), indexada.getLlavePublica(), indexada.getEstadoOperativo(),
+                indexada.getReglasEnrutamiento(), new InterruptorCircuito(abierto, fallos, ultimoFallo));
+        indiceEnrutamiento.actualizar(transicion);
+        return transicion;
+    }
+
+    private void vaciarVentana(String bic) {
+        Contador contador = contadores.get(bic);
+        if (contador != null) {
+            contador.vaciarVentana();
+        }
+    }
+
+    private void registrarCambio(Institucion actual) {
+        if (actual != null) {
+            registroCambios.registrar(CambioDirectorioDTO.Tipo.INTERRUPTOR, mapper.toDTO(actual));
+        }
+    }
+
+    private void contarTransicion(String bic, String transicion) {
+        meterRegistry.counter("directorio.interruptor.transiciones", "bic", bic, "transicion", transicion).increment();
+    }
+
+    private boolean recuperacionVencida(LocalDateTime ultimoFallo) {
+        return ChronoUnit.SECONDS.between(ultimoFallo, LocalDateTime.now(ZoneOffset.UTC)) > recuperacionSegundos;
+    }
+
+    private long anchoCubeta() {
+        return Math.max(1, ventanaSegundos * 1000 / CUBETAS);
+    }
+
+    /**
+     * Contador por BIC: cubetas de tiempo, más los fallos pendientes de volcar y
+     * si hay que reiniciar la racha en DynamoDB. Cada cubeta guarda época (32 bits
+     * altos) y conteo (32 bajos) en un único long, así que cambiar de época y
+     * sumar es un solo CAS: un fallo sumado por otro hilo en la época nueva no se
+     * pierde al reiniciar la cubeta.
+     */
+    static final class Contador {
+
+        private static final long MASCARA_CONTEO = 0xFFFF_FFFFL;
+
+        private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+        private final AtomicInteger pendientes = new AtomicInteger();
+        private final AtomicBoolean reinicioPendiente = new AtomicBoolean();
+        private volatile long ultimoFalloMs;
+
+        void registrar(long ahora, long anchoCubeta, int n) {
+            long epoca = ahora / anchoCubeta;
+            int i = (int) (epoca % CUBETAS);
+            long actual;
+            long nueva;
+            do {
+                actual = cubetas.get(i);
+                nueva = epoca(actual) == epoca ? actual + n : (epoca << 32) | n;
+            } while (!cubetas.compareAndSet(i, actual, nueva));
+            pendientes.addAndGet(n);
+            ultimoFalloMs = ahora;
+        }
+
+        void reiniciar() {
+            vaciarVentana();
+            pendientes.set(0);
+            reinicioPendiente.set(true);
+        }
+
+        void vaciarVentana() {
+            for (int i = 0; i < CUBETAS; i++) {
+                cubetas.set(i, 0);
+            }
+        }
+
+        void devolver(int fallosNoVolcados, boolean reinicio) {
+            pendientes.addAndGet(fallosNoVolcados);
+            if (reinicio) {
+                reinicioPendiente.set(true);
+            }
+        }
+
+        int enVentana(long ahora, long anchoCubeta) {
+            long epocaActual = ahora / anchoCubeta;
+            int total = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                long cubeta = cubetas.get(i);
+                if (epocaActual - epoca(cubeta) < CUBETAS) {
+                    total += (int) (cubeta & MASCARA_CONTEO);
+                }
+            }
+            return total;
+        }
+
+        private static long epoca(long cubeta) {
+            return cubeta >>> 32;
+        }
+    }
+}
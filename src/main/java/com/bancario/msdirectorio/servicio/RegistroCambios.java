@@ -0,0 +1,270 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.dto.CambioDirectorioDTO;
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Log de cambios del directorio con versión monotónica compartida entre
+ * réplicas, guardado en Redis (sorted set con la versión como score). Permite a
+ * los nodos del switch mantener una réplica local pidiendo solo los cambios
+ * desde su última versión. Un cambio que no se puede escribir (Redis caído) no
+ * se pierde: queda en una cola local, en orden, y se reintenta hasta que entra.
+ * <p>
+ * La versión se asigna al volcar, pero cada cambio lleva la marca de cuándo
+ * ocurrió y Redis guarda la última marca escrita por BIC: un cambio que llega
+ * tarde (la réplica que lo tenía pendiente estuvo sin Redis) y ya tiene otro más
+ * reciente del mismo banco en el log no se escribe, para que los nodos no
+ * acaben con el estado viejo. La marca es el reloj de la réplica, así que el
+ * orden entre réplicas es tan bueno como su sincronización NTP.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RegistroCambios {
+
+    private static final String CLAVE_VERSION = "directorio:cambios:version";
+    private static final String CLAVE_LOG = "directorio:cambios";
+    private static final String CLAVE_MARCAS = "directorio:cambios:marcas";
+    private static final char SEPARADOR = '|';
+
+    // INCR + ZADD atómicos: ningún lector puede ver la versión N+1 antes que la N.
+    // Devuelve 0 si el banco ya tiene en el log un cambio posterior a este.
+    private static final RedisScript<Long> SCRIPT_REGISTRAR = RedisScript.of("""
+            local m = redis.call('HGET', KEYS[3], ARGV[3])
+            if m and tonumber(m) > tonumber(ARGV[4]) then
+                return 0
+            end
+            redis.call('HSET', KEYS[3], ARGV[3], ARGV[4])
+            local v = redis.call('INCR', KEYS[1])
+            redis.call('ZADD', KEYS[2], v, v .. '|' .. ARGV[1])
+            redis.call('ZREMRANGEBYRANK', KEYS[2], 0, -(tonumber(ARGV[2]) + 1))
+            return v
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final InterruptorRedis interruptorRedis;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${directorio.cambios.retencion:10000}")
+    private long retencion;
+
+    @Value("${directorio.cambios.max-por-consulta:1000}")
+    private long maxPorConsulta;
+
+    @Value("${directorio.cambios.max-pendientes:10000}")
+    private int maxPendientes;
+
+    // Cambios aún sin versión, en orden de registro. El candado solo protege la
+    // cola: la E/S contra Redis se hace fuera, en el hilo del volcador.
+    private final Deque<Pendiente> pendientes = new ArrayDeque<>();
+    private final ReentrantLock candado = new ReentrantLock();
+
+    // Un único hilo escribe en Redis: quien registra un cambio no espera a Redis
+    // y los volcados nunca se solapan.
+    private final ExecutorService volcador = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("registro-cambios").factory());
+    private final AtomicBoolean volcadoProgramado = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("directorio.cambios.pendientes", pendientes, Deque::size);
+        interruptorRedis.alRecuperar(this::programarVolcado);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        volcador.shutdown();
+    }
+
+    /**
+     * Encola el cambio, marcado con el instante en que ocurre, y programa el
+     * volcado sin esperarlo. Si Redis falla, el cambio espera en la cola (detrás
+     * de los anteriores, para no alterar el orden) hasta el siguiente reintento.
+     */
+    public void registrar(CambioDirectorioDTO.Tipo tipo, InstitucionDTO institucion) {
+        CambioDirectorioDTO cambio = CambioDirectorioDTO.builder()
+                .tipo(tipo.name())
+                .codigoBic(institucion.getCodigoBic())
+                .institucion(institucion)
+                .build();
+        String serializado;
+        try {
+            serializado = objectMapper.writeValueAsString(cambio);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el cambio de " + institucion.getCodigoBic(), e);
+        }
+        candado.lock();
+        try {
+            // Dentro del candado: en una réplica, las marcas siguen el orden de la cola.
+            long marca = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+            if (pendientes.size() >= maxPendientes) {
+                // Sin espacio: se descarta el más antiguo y se avisa; los nodos que
+                // lo necesiten lo recuperan con la resincronización completa.
+                meterRegistry.counter("directorio.cambios.descartados").increment();
+                log.error("Cola de cambios pendientes llena ({}), se descarta el más antiguo", maxPendientes);
+                pendientes.pollFirst();
+            }
+            pendientes.addLast(new Pendiente(institucion.getCodigoBic(), marca, serializado));
+        } finally {
+            candado.unlock();
+        }
+        programarVolcado();
+    }
+
+    @Scheduled(fixedDelayString = "${directorio.cambios.reintento-ms:1000}")
+    public void reintentar() {
+        if (!pendientes.isEmpty()) {
+            programarVolcado();
+        }
+    }
+
+    private void programarVolcado() {
+        if (volcadoProgramado.compareAndSet(false, true)) {
+            volcador.execute(() -> {
+                // Se libera antes de volcar: lo que se registre durante el volcado
+                // programa otra pasada.
+                volcadoProgramado.set(false);
+                volcar();
+            });
+        }
+    }
+
+    /**
+     * Escribe los cambios pendientes en orden; se detiene en el primer fallo. Con
+     * el interruptor de Redis abierto no lo intenta.
+     */
+    void volcar() {
+        Pendiente cambio;
+        while (interruptorRedis.permite() && (cambio = primero()) != null) {
+            try {
+                Long version = stringRedisTemplate.execute(SCRIPT_REGISTRAR,
+                        List.of(CLAVE_VERSION, CLAVE_LOG, CLAVE_MARCAS), cambio.serializado(),
+                        Long.toString(retencion), cambio.codigoBic(), Long.toString(cambio.marca()));
+                interruptorRedis.exito();
+                if (version != null && version == 0) {
+                    meterRegistry.counter("directorio.cambios.obsoletos").increment();
+                    log.info("Cambio de {} no registrado: el log ya tiene uno posterior", cambio.codigoBic());
+                } else {
+                    log.debug("Cambio registrado con versión {}", version);
+                }
+                quitar(cambio);
+            } catch (Exception e) {
+                meterRegistry.counter(CacheLookup.METRICA_ERRORES_REDIS, "operacion", "cambios.registrar")
+                        .increment();
+                interruptorRedis.fallo();
+                log.warn("No se pudieron registrar {} cambios, se reintentará: {}", pendientes.size(),
+                        e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private Pendiente primero() {
+        candado.lock();
+        try {
+            return pendientes.peekFirst();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Solo si sigue en cabeza: con la cola llena, {@code registrar} pudo
+     * descartarlo mientras se escribía.
+     */
+    private void quitar(Pendiente cambio) {
+        candado.lock();
+        try {
+            if (pendientes.peekFirst() == cambio) {
+                pendientes.pollFirst();
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Versión actual del log, o vacío si Redis no está disponible.
+     */
+    public Optional<Long> versionActual() {
+        try {
+            String valor = stringRedisTemplate.opsForValue().get(CLAVE_VERSION);
+            return Optional.of(valor == null ? 0L : Long.parseLong(valor));
+        } catch (Exception e) {
+            meterRegistry.counter(CacheLookup.METRICA_ERRORES_REDIS, "operacion", "cambios.versionActual").increment();
+            log.warn("Redis no disponible para leer la versión del directorio: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Cambios con versión mayor que {@code desde}, en orden. Vacío si el log ya no
+     * conserva esa versión (el cliente debe resincronizar completo) o si Redis no
+     * está disponible.
+     */
+    public Optional<List<CambioDirectorioDTO>> desde(long desde) {
+        try {
+            Set<ZSetOperations.TypedTuple<String>> primero = stringRedisTemplate.opsForZSet()
+                    .rangeWithScores(CLAVE_LOG, 0, 0);
+            if (primero != null && !primero.isEmpty()) {
+                double minimo = primero.iterator().next().getScore();
+                if (desde < minimo - 1) {
+                    return Optional.empty();
+                }
+            }
+
+            Set<String> miembros = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(CLAVE_LOG, desde + 1, Double.POSITIVE_INFINITY, 0, maxPorConsulta);
+            List<CambioDirectorioDTO> cambios = new ArrayList<>();
+            if (miembros != null) {
+                for (String miembro : miembros) {
+                    cambios.add(leer(miembro));
+                }
+            }
+            return Optional.of(cambios);
+        } catch (Exception e) {
+            meterRegistry.counter(CacheLookup.METRICA_ERRORES_REDIS, "operacion", "cambios.desde").increment();
+            log.warn("Redis no disponible para leer cambios del directorio: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private record Pendiente(String codigoBic, long marca, String serializado) {
+    }
+
+    private CambioDirectorioDTO leer(String miembro) throws JsonProcessingException {
+        int corte = miembro.indexOf(SEPARADOR);
+        CambioDirectorioDTO cambio = objectMapper.readValue(miembro.substring(corte + 1), CambioDirectorioDTO.class);
+        cambio.setVersion(Long.parseLong(miembro.substring(0, corte)));
+        return cambio;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Respuesta del lookup ya serializada (JSON UTF-8) por versión de institución.
+ * El índice de enrutamiento sustituye la instancia en cada cambio, interruptor
+ * incluido (apertura y cierre recargan el banco), así que la propia instancia
+ * es la versión: la cache compara por identidad y, al ser claves débiles, las
+ * versiones que el índice descarta desaparecen solas. Un acierto no mapea ni
+ * serializa nada.
+ */
+@Component
+@RequiredArgsConstructor
+public class RespuestasLookup {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<Institucion, byte[]> respuestas;
+
+    @PostConstruct
+    void init() {
+        respuestas = Caffeine.newBuilder()
+                .weakKeys()
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, respuestas, "lookup.respuestas");
+    }
+
+    /**
+     * Bytes de la respuesta para esta versión; si no están, se proyecta con
+     * {@code ruta} y se serializa una única vez.
+     */
+    public byte[] obtener(Institucion inst, Function<Institucion, InstitucionDTO> ruta) {
+        return respuestas.get(inst, k -> serializar(ruta.apply(k)));
+    }
+
+    public byte[] serializar(InstitucionDTO dto) {
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta de " + dto.getCodigoBic(), e);
+        }
+    }
+}
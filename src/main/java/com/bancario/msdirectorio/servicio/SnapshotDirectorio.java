@@ -0,0 +1,89 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.bancario.msdirectorio.mapper.InstitucionMapper;
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Directorio completo ya serializado (JSON y gzip) con un ETag fuerte derivado
+ * del contenido. Se reconstruye solo cuando cambia la versión del índice de
+ * enrutamiento, es decir, cuando hubo escrituras.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SnapshotDirectorio {
+
+    private final IndiceEnrutamiento indiceEnrutamiento;
+    private final InstitucionMapper mapper;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot actual;
+
+    public Snapshot obtener() {
+        long version = indiceEnrutamiento.asegurarCargado();
+        Snapshot snapshot = actual;
+        if (snapshot != null && snapshot.version() == version) {
+            return snapshot;
+        }
+        return reconstruir(version);
+    }
+
+    private synchronized Snapshot reconstruir(long version) {
+        if (actual != null && actual.version() == version) {
+            return actual;
+        }
+        List<Institucion> instituciones = indiceEnrutamiento.instituciones().stream()
+                .sorted(Comparator.comparing(Institucion::getCodigoBic))
+                .toList();
+        List<InstitucionDTO> dtos = mapper.toDTOList(instituciones);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(dtos);
+            actual = new Snapshot(version, dtos, json, gzip(json), etag(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el directorio", e);
+        }
+        log.debug("Snapshot del directorio v{} reconstruido: {} instituciones, {} bytes", version, dtos.size(),
+                actual.json().length);
+        return actual;
+    }
+
+    private static byte[] gzip(byte[] datos) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(datos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    private static String etag(byte[] datos) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(datos);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Snapshot(long version, List<InstitucionDTO> instituciones, byte[] json, byte[] gzip, String etag) {
+    }
+}
@@ -0,0 +1,305 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.InterruptorCircuito;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Copia local de la tabla de enrutamiento en un fichero binario que se lee con
+ * un {@link MappedByteBuffer}. Guarda el trie del índice tal cual (hijos y
+ * destino como enteros) y un registro por institución con los datos de ruta
+ * (BIC, URL, estado, interruptor; sin reglas), de modo que el lookup recorre
+ * directamente la memoria mapeada. Al arrancar se abre la última copia válida y
+ * se enruta con ella mientras el índice se carga de DynamoDB, o si DynamoDB no
+ * responde. El fichero se reemplaza con un rename atómico y lleva CRC32: uno a
+ * medio escribir o corrupto se descarta. En cuanto el índice carga se suelta
+ * el mapeo; el fichero se sigue reescribiendo para el siguiente arranque.
+ */
+@Slf4j
+@Component
+public class SnapshotRutasLocal {
+
+    private static final int MAGICO = 0x44525331; // "DRS1"
+    private static final int FORMATO = 1;
+    // magico, formato, generado (ms), nodos, instituciones, crc del cuerpo
+    private static final int CABECERA = 4 + 4 + 8 + 4 + 4 + 8;
+    private static final int RADIX = 10;
+    private static final int SIN_VALOR = -1;
+
+    @Value("${directorio.snapshot-local.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${directorio.snapshot-local.ruta:directorio-rutas.bin}")
+    private Path ruta;
+
+    private volatile Mapa mapa;
+
+    @PostConstruct
+    void abrir() {
+        if (!habilitado || !Files.isReadable(ruta)) {
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            mapa = Mapa.leer(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+            log.info("Snapshot local de rutas abierto: {} instituciones, generado hace {} s", mapa.instituciones.length(),
+                    (System.currentTimeMillis() - mapa.generadoMs) / 1000);
+        } catch (Exception e) {
+            log.warn("Snapshot local de rutas {} descartado: {}", ruta, e.getMessage());
+        }
+    }
+
+    /**
+     * Suelta la copia mapeada (y las instituciones ya decodificadas) cuando el
+     * índice ya no la necesita; el mapeo se libera cuando el GC recoge el buffer.
+     */
+    public void liberar() {
+        if (mapa != null) {
+            mapa = null;
+            log.info("Snapshot local de rutas liberado: el índice ya está cargado");
+        }
+    }
+
+    /**
+     * Hay una copia válida mapeada con la que enrutar.
+     */
+    public boolean disponible() {
+        return mapa != null;
+    }
+
+    /**
+     * Misma coincidencia por prefijo más largo que el índice, sobre la memoria
+     * mapeada. Cada institución se decodifica la primera vez que se resuelve y
+     * después se devuelve la misma instancia.
+     */
+    public Institucion resolver(String numero) {
+        Mapa actual = mapa;
+        return actual == null || numero == null ? null : actual.resolver(numero);
+    }
+
+    /**
+     * Escribe la tabla del índice en un temporal y lo renombra sobre la copia
+     * anterior. No cambia lo mapeado: la copia abierta al arrancar solo se usa
+     * hasta que el índice carga.
+     */
+    void guardar(int[] hijos, int[] destino, Institucion[] instituciones) throws IOException {
+        if (!habilitado) {
+            return;
+        }
+        if (ruta.getParent() != null) {
+            Files.createDirectories(ruta.getParent());
+        }
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            canal.position(CABECERA);
+            OutputStream salida = new CheckedOutputStream(Channels.newOutputStream(canal), crc);
+            DataOutputStream datos = new DataOutputStream(new BufferedOutputStream(salida, 64 * 1024));
+            escribirCuerpo(datos, hijos, destino, instituciones);
+            datos.flush();
+
+            ByteBuffer cabecera = ByteBuffer.allocate(CABECERA)
+                    .putInt(MAGICO).putInt(FORMATO).putLong(System.currentTimeMillis())
+                    .putInt(destino.length).putInt(instituciones.length).putLong(crc.getValue())
+                    .flip();
+            canal.write(cabecera, 0);
+            canal.force(true);
+        }
+        Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Snapshot local de rutas guardado en {}: {} instituciones, {} nodos", ruta, instituciones.length,
+                destino.length);
+    }
+
+    /**
+     * hijos[nodos * 10], destino[nodos], desplazamiento de cada registro (desde
+     * el inicio de los registros) y los registros.
+     */
+    private static void escribirCuerpo(DataOutputStream datos, int[] hijos, int[] destino,
+            Institucion[] instituciones) throws IOException {
+        for (int hijo : hijos) {
+            datos.writeInt(hijo);
+        }
+        for (int d : destino) {
+            datos.writeInt(d);
+        }
+        byte[][] registros = new byte[instituciones.length][];
+        int desplazamiento = 0;
+        for (int i = 0; i < instituciones.length; i++) {
+            registros[i] = registro(instituciones[i]);
+            datos.writeInt(desplazamiento);
+            desplazamiento += registros[i].length;
+        }
+        for (byte[] registro : registros) {
+            datos.write(registro);
+        }
+    }
+
+    private static byte[] registro(Institucion inst) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream datos = new DataOutputStream(bytes);
+        escribirTexto(datos, inst.getId());
+        escribirTexto(datos, inst.getCodigoBic());
+        escribirTexto(datos, inst.getNombre());
+        escribirTexto(datos, inst.getUrlDestino());
+        escribirTexto(datos, inst.getLlavePublica());
+        escribirTexto(datos, inst.getEstadoOperativo());
+        InterruptorCircuito cb = inst.getInterruptorCircuito();
+        datos.writeByte(cb == null ? SIN_VALOR : cb.isEstaAbierto() ? 1 : 0);
+        if (cb != null) {
+            datos.writeInt(cb.getFallosConsecutivos());
+            LocalDateTime ultimo = cb.getUltimoFallo();
+            datos.writeLong(ultimo == null ? Long.MIN_VALUE : ultimo.toEpochSecond(ZoneOffset.UTC));
+            datos.writeInt(ultimo == null ? 0 : ultimo.getNano());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void escribirTexto(DataOutputStream datos, String texto) throws IOException {
+        if (texto == null) {
+            datos.writeInt(SIN_VALOR);
+            return;
+        }
+        byte[] utf8 = texto.getBytes(StandardCharsets.UTF_8);
+        datos.writeInt(utf8.length);
+        datos.write(utf8);
+    }
+
+    /**
+     * Vistas sobre el fichero mapeado. Solo se usan lecturas absolutas, que no
+     * tocan la posición de los buffers y se pueden compartir entre hilos.
+     */
+    private static final class Mapa {
+
+        private final long generadoMs;
+        private final IntBuffer hijos;
+        private final IntBuffer destino;
+        private final IntBuffer desplazamientos;
+        private final ByteBuffer registros;
+        private final AtomicReferenceArray<Institucion> instituciones;
+
+        private Mapa(long generadoMs, IntBuffer hijos, IntBuffer destino, IntBuffer desplazamientos,
+                ByteBuffer registros, int numInstituciones) {
+            this.generadoMs = generadoMs;
+            this.hijos = hijos;
+            this.destino = destino;
+            this.desplazamientos = desplazamientos;
+            this.registros = registros;
+            this.instituciones = new AtomicReferenceArray<>(numInstituciones);
+        }
+
+        static Mapa leer(MappedByteBuffer buffer) {
+            if (buffer.capacity() < CABECERA || buffer.getInt(0) != MAGICO || buffer.getInt(4) != FORMATO) {
+                throw new IllegalStateException("formato desconocido");
+            }
+            long generadoMs = buffer.getLong(8);
+            int nodos = buffer.getInt(16);
+            int numInstituciones = buffer.getInt(20);
+            long crcEsperado = buffer.getLong(24);
+
+            ByteBuffer cuerpo = buffer.slice(CABECERA, buffer.capacity() - CABECERA);
+            CRC32 crc = new CRC32();
+            crc.update(cuerpo.duplicate());
+            if (crc.getValue() != crcEsperado) {
+                throw new IllegalStateException("CRC no coincide");
+            }
+
+            int posicion = 0;
+            IntBuffer hijos = cuerpo.slice(posicion, nodos * RADIX * 4).asIntBuffer();
+            posicion += nodos * RADIX * 4;
+            IntBuffer destino = cuerpo.slice(posicion, nodos * 4).asIntBuffer();
+            posicion += nodos * 4;
+            IntBuffer desplazamientos = cuerpo.slice(posicion, numInstituciones * 4).asIntBuffer();
+            posicion += numInstituciones * 4;
+            ByteBuffer registros = cuerpo.slice(posicion, cuerpo.capacity() - posicion);
+            return new Mapa(generadoMs, hijos, destino, desplazamientos, registros, numInstituciones);
+        }
+
+        Institucion resolver(String numero) {
+            int nodo = 0;
+            int mejor = destino.get(0);
+            for (int i = 0; i < numero.length(); i++) {
+                int digito = numero.charAt(i) - '0';
+                if (digito < 0 || digito >= RADIX) {
+                    break;
+                }
+                nodo = hijos.get(nodo * RADIX + digito);
+                if (nodo == 0) {
+                    break;
+                }
+                if (destino.get(nodo) >= 0) {
+                    mejor = destino.get(nodo);
+                }
+            }
+            return mejor >= 0 ? institucion(mejor) : null;
+        }
+
+        private Institucion institucion(int idx) {
+            Institucion inst = instituciones.get(idx);
+            if (inst == null) {
+                inst = decodificar(desplazamientos.get(idx));
+                if (!instituciones.compareAndSet(idx, null, inst)) {
+                    inst = instituciones.get(idx);
+                }
+            }
+            return inst;
+        }
+
+        private Institucion decodificar(int posicion) {
+            int[] cursor = { posicion };
+            Institucion inst = new Institucion();
+            inst.setId(leerTexto(cursor));
+            inst.setCodigoBic(leerTexto(cursor));
+            inst.setNombre(leerTexto(cursor));
+            inst.setUrlDestino(leerTexto(cursor));
+            inst.setLlavePublica(leerTexto(cursor));
+            inst.setEstadoOperativo(leerTexto(cursor));
+            byte abierto = registros.get(cursor[0]++);
+            if (abierto != SIN_VALOR) {
+                int fallos = registros.getInt(cursor[0]);
+                long segundos = registros.getLong(cursor[0] + 4);
+                int nanos = registros.getInt(cursor[0] + 12);
+                inst.setInterruptorCircuito(new InterruptorCircuito(abierto == 1, fallos,
+                        segundos == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC)));
+            }
+            return inst;
+        }
+
+        private String leerTexto(int[] cursor) {
+            int longitud = registros.getInt(cursor[0]);
+            cursor[0] += 4;
+            if (longitud == SIN_VALOR) {
+                return null;
+            }
+            byte[] utf8 = new byte[longitud];
+            registros.get(cursor[0], utf8);
+            cursor[0] += longitud;
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+}
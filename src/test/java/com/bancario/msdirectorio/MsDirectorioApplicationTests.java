@@ -3,7 +3,7 @@ package com.bancario.msdirectorio;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "directorio.dynamodb.verificar-indices=false")
 class MsDirectorioApplicationTests {
 
 	@Test
@@ -0,0 +1,42 @@
+package com.bancario.msdirectorio.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ApimSecurityFilterTests {
+
+    private final ApimSecurityFilter filtro = new ApimSecurityFilter();
+
+    @BeforeEach
+    void preparar() {
+        ReflectionTestUtils.setField(filtro, "securityEnabled", true);
+        ReflectionTestUtils.setField(filtro, "expectedSecret", "secreto");
+    }
+
+    @Test
+    void prometheusExigeElSecreto() throws Exception {
+        assertThat(estado("/actuator/prometheus", null)).isEqualTo(403);
+        assertThat(estado("/actuator/prometheus", "secreto")).isEqualTo(200);
+    }
+
+    @Test
+    void lasSondasDeSaludNoLoExigen() throws Exception {
+        assertThat(estado("/actuator/health/readiness", null)).isEqualTo(200);
+    }
+
+    private int estado(String ruta, String secreto) throws Exception {
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", ruta);
+        if (secreto != null) {
+            peticion.addHeader("x-origin-secret", secreto);
+        }
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        filtro.doFilter(peticion, respuesta, new MockFilterChain());
+        return respuesta.getStatus();
+    }
+}
@@ -0,0 +1,82 @@
+package com.bancario.msdirectorio.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LimitadorConcurrenciaFilterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LimitadorConcurrenciaFilter limitador = new LimitadorConcurrenciaFilter(meterRegistry);
+    private AtomicInteger enVuelo;
+
+    @BeforeEach
+    void preparar() {
+        ReflectionTestUtils.setField(limitador, "habilitado", true);
+        ReflectionTestUtils.setField(limitador, "limiteInicial", 10);
+        ReflectionTestUtils.setField(limitador, "limiteMin", 10);
+        ReflectionTestUtils.setField(limitador, "limiteMax", 10);
+        ReflectionTestUtils.setField(limitador, "ventanaMs", 100L);
+        ReflectionTestUtils.setField(limitador, "retryAfterSegundos", 1);
+        limitador.init();
+        enVuelo = (AtomicInteger) ReflectionTestUtils.getField(limitador, "enVuelo");
+    }
+
+    @Test
+    void conLaMitadDelLimiteOcupadaSoloSeDescartaLaPrioridadBaja() throws Exception {
+        enVuelo.set(5);
+
+        assertThat(estado("POST", "/api/v1/instituciones")).isEqualTo(503);
+        assertThat(estado("GET", "/api/v1/instituciones")).isEqualTo(200);
+        assertThat(estado("GET", "/api/v1/lookup/411111")).isEqualTo(200);
+        assertThat(enVuelo).hasValue(5);
+    }
+
+    @Test
+    void cercaDelLimiteSoloEntraLoCritico() throws Exception {
+        enVuelo.set(8);
+
+        assertThat(estado("GET", "/api/v1/instituciones")).isEqualTo(503);
+        assertThat(estado("POST", "/api/v1/reportes/lote")).isEqualTo(200);
+        assertThat(estado("POST", "/api/v1/instituciones/ALFA/reportar-fallo")).isEqualTo(200);
+        assertThat(estado("GET", "/api/v1/lookup/411111")).isEqualTo(200);
+    }
+
+    @Test
+    void enElLimiteSeDescartaTodoMenosLoQueNoSeLimita() throws Exception {
+        enVuelo.set(10);
+
+        assertThat(estado("GET", "/api/v1/lookup/411111")).isEqualTo(503);
+        assertThat(estado("GET", "/actuator/health")).isEqualTo(200);
+        assertThat(meterRegistry.get("directorio.limitador.rechazos").tag("prioridad", "critica").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void elRechazoIndicaCuandoReintentar() throws Exception {
+        enVuelo.set(10);
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+
+        limitador.doFilter(new MockHttpServletRequest("POST", "/api/v1/instituciones"), respuesta,
+                new MockFilterChain());
+
+        assertThat(respuesta.getStatus()).isEqualTo(503);
+        assertThat(respuesta.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    private int estado(String metodo, String ruta) throws Exception {
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        limitador.doFilter(new MockHttpServletRequest(metodo, ruta), respuesta, new MockFilterChain());
+        return respuesta.getStatus();
+    }
+}
@@ -0,0 +1,50 @@
+package com.bancario.msdirectorio.controlador;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.bancario.msdirectorio.servicio.SnapshotDirectorio.Snapshot;
+
+class RespuestaSnapshotTests {
+
+    private static final String ETAG = "\"abc123\"";
+    private final Snapshot snapshot = new Snapshot(1, List.of(), "[]".getBytes(), new byte[] { 1, 2, 3 }, ETAG);
+
+    @Test
+    void cadaCodificacionLlevaSuEtag() {
+        ResponseEntity<StreamingResponseBody> json = RespuestaSnapshot.responder(snapshot, null, null);
+        ResponseEntity<StreamingResponseBody> gzip = RespuestaSnapshot.responder(snapshot, null, "gzip, br");
+
+        assertThat(json.getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(gzip.getHeaders().getETag()).isEqualTo("\"abc123-gzip\"");
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    }
+
+    @Test
+    void cualquieraDeLosDosEtagsDaUn304ConVary() {
+        ResponseEntity<StreamingResponseBody> desdeGzip = RespuestaSnapshot.responder(snapshot, "\"abc123-gzip\"",
+                null);
+        ResponseEntity<StreamingResponseBody> desdeJson = RespuestaSnapshot.responder(snapshot, "W/\"abc123\"",
+                "gzip");
+
+        assertThat(desdeGzip.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(desdeGzip.getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(desdeGzip.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(desdeJson.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(desdeJson.getHeaders().getETag()).isEqualTo("\"abc123-gzip\"");
+        assertThat(desdeJson.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Test
+    void otroEtagNoCoincide() {
+        assertThat(RespuestaSnapshot.coincide("\"otro\", \"otro-gzip\"", ETAG)).isFalse();
+        assertThat(RespuestaSnapshot.responder(snapshot, "\"otro\"", null).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+}
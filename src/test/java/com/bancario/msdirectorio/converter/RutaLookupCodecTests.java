@@ -0,0 +1,68 @@
+package com.bancario.msdirectorio.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+
+class RutaLookupCodecTests {
+
+    private final RutaLookupCodec codec = new RutaLookupCodec();
+
+    @Test
+    void idaYVueltaConservaLaRuta() {
+        InstitucionDTO ruta = ruta();
+
+        assertThat(codec.deserialize(codec.serialize(ruta))).isEqualTo(ruta);
+    }
+
+    @Test
+    void idaYVueltaConNulosYSinInterruptor() {
+        InstitucionDTO ruta = InstitucionDTO.builder().codigoBic("ALFA").nombre("Año ñandú").build();
+
+        assertThat(codec.deserialize(codec.serialize(ruta))).isEqualTo(ruta);
+    }
+
+    @Test
+    void valorTruncadoSeLeeComoFallo() {
+        byte[] bytes = codec.serialize(ruta());
+
+        for (int longitud = 0; longitud < bytes.length; longitud++) {
+            assertThat(codec.deserialize(Arrays.copyOf(bytes, longitud))).isNull();
+        }
+    }
+
+    @Test
+    void longitudCorruptaSeLeeComoFallo() {
+        byte[] bytes = codec.serialize(ruta());
+        // Longitud del primer texto (id), justo después de versión, flags y fallos.
+        int posicion = 2 + Integer.BYTES;
+
+        ByteBuffer.wrap(bytes).putInt(posicion, Integer.MAX_VALUE);
+        assertThat(codec.deserialize(bytes)).isNull();
+
+        ByteBuffer.wrap(bytes).putInt(posicion, -7);
+        assertThat(codec.deserialize(bytes)).isNull();
+    }
+
+    @Test
+    void otraVersionSeLeeComoFallo() {
+        assertThat(codec.deserialize("{\"codigoBic\":\"ALFA\"}".getBytes())).isNull();
+    }
+
+    private static InstitucionDTO ruta() {
+        return InstitucionDTO.builder()
+                .id("id-1")
+                .codigoBic("ALFA")
+                .nombre("Banco Alfa")
+                .urlDestino("https://alfa.example/api")
+                .llavePublica("LLAVE")
+                .estadoOperativo("ONLINE")
+                .interruptorCircuito(new InstitucionDTO.CircuitBreakerDTO(true, 3, "2026-01-01T10:00:00"))
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.bancario.msdirectorio.repositorio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+class InstitucionRepositorioTests {
+
+    @Test
+    void findByCodigoBicUsaQuerySobreElIndiceSinScan() {
+        DynamoDbAsyncClient dynamo = mock(DynamoDbAsyncClient.class,
+                withSettings().defaultAnswer(Answers.CALLS_REAL_METHODS));
+        doReturn(CompletableFuture.completedFuture(QueryResponse.builder()
+                .items(Map.of(
+                        "institucion_id", AttributeValue.fromS("id-1"),
+                        "codigoBic", AttributeValue.fromS("NEXUS_BANK"),
+                        "interruptorCircuito", AttributeValue.fromM(Map.of(
+                                "estaAbierto", AttributeValue.fromN("1"),
+                                "fallosConsecutivos", AttributeValue.fromN("3")))))
+                .build()))
+                .when(dynamo).query(any(QueryRequest.class));
+
+        DynamoDbEnhancedAsyncClient enhanced = DynamoDbEnhancedAsyncClient.builder().dynamoDbClient(dynamo).build();
+        InstitucionRepositorio repositorio = new InstitucionRepositorioDynamo(enhanced, dynamo, new SimpleMeterRegistry());
+
+        Institucion institucion = repositorio.findByCodigoBic("NEXUS_BANK").orElseThrow();
+        assertThat(institucion.getId()).isEqualTo("id-1");
+        assertThat(institucion.getInterruptorCircuito().isEstaAbierto()).isTrue();
+        assertThat(institucion.getInterruptorCircuito().getFallosConsecutivos()).isEqualTo(3);
+
+        ArgumentCaptor<QueryRequest> query = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamo, times(1)).query(query.capture());
+        verify(dynamo, never()).scan(any(ScanRequest.class));
+        assertThat(query.getValue().indexName()).isEqualTo(Institucion.INDICE_BIC);
+    }
+
+    @Test
+    void findAllLeeLosSegmentosEnParaleloYLosUneEnOrden() {
+        DynamoDbAsyncClient dynamo = mock(DynamoDbAsyncClient.class,
+                withSettings().defaultAnswer(Answers.CALLS_REAL_METHODS));
+        doAnswer(invocacion -> {
+            ScanRequest scan = invocacion.getArgument(0);
+            return CompletableFuture.completedFuture(ScanResponse.builder()
+                    .items(Map.of(
+                            "institucion_id", AttributeValue.fromS("id-" + scan.segment()),
+                            "codigoBic", AttributeValue.fromS("BANCO_" + scan.segment())))
+                    .scannedCount(1)
+                    .build());
+        }).when(dynamo).scan(any(ScanRequest.class));
+
+        DynamoDbEnhancedAsyncClient enhanced = DynamoDbEnhancedAsyncClient.builder().dynamoDbClient(dynamo).build();
+        InstitucionRepositorioDynamo repositorio = new InstitucionRepositorioDynamo(enhanced, dynamo,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(repositorio, "segmentos", 3);
+        ReflectionTestUtils.setField(repositorio, "tamanoPagina", 100);
+
+        assertThat(repositorio.findAll()).extracting(Institucion::getCodigoBic)
+                .containsExactly("BANCO_0", "BANCO_1", "BANCO_2");
+
+        ArgumentCaptor<ScanRequest> scans = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(dynamo, times(3)).scan(scans.capture());
+        assertThat(scans.getAllValues()).extracting(ScanRequest::segment).containsExactlyInAnyOrder(0, 1, 2);
+        assertThat(scans.getAllValues()).allSatisfy(scan -> {
+            assertThat(scan.totalSegments()).isEqualTo(3);
+            assertThat(scan.limit()).isEqualTo(100);
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package com.bancario.msdirectorio.servicio;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.InterruptorCircuito;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+
+/**
+ * Banco de prueba compartido por los tests de servicio: id {@code alfa}, BIC
+ * {@code ALFA}, en línea.
+ */
+final class Bancos {
+
+    private Bancos() {
+    }
+
+    /**
+     * Con el interruptor cerrado y las reglas de {@code prefijos}.
+     */
+    static Institucion alfa(String... prefijos) {
+        return alfa(new InterruptorCircuito(false, 0, null), prefijos);
+    }
+
+    static Institucion alfa(InterruptorCircuito interruptor, String... prefijos) {
+        return new Institucion("alfa", "ALFA", "Banco Alfa", "https://alfa.example/api", null, "ONLINE",
+                reglas(prefijos), interruptor);
+    }
+
+    static List<ReglaEnrutamiento> reglas(String... prefijos) {
+        List<ReglaEnrutamiento> reglas = new ArrayList<>();
+        for (String prefijo : prefijos) {
+            reglas.add(new ReglaEnrutamiento(prefijo, "AGENTE"));
+        }
+        return reglas;
+    }
+}
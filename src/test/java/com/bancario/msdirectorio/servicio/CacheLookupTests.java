@@ -0,0 +1,127 @@
+package com.bancario.msdirectorio.servicio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CacheLookupTests {
+
+    private static final int PETICIONES = 32;
+    private static final String BIN = "411111";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fallosConcurrentesDeUnBinCompartenUnaCarga() throws Exception {
+        RedisTemplate<String, InstitucionDTO> redis = mock(RedisTemplate.class);
+        ValueOperations<String, InstitucionDTO> valores = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(valores);
+        InterruptorRedis interruptorRedis = mock(InterruptorRedis.class);
+        when(interruptorRedis.permite()).thenReturn(true);
+
+        CacheLookup cache = new CacheLookup(redis, mock(StringRedisTemplate.class), interruptorRedis,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntradas", 1000L);
+        ReflectionTestUtils.setField(cache, "ttlSegundos", 60L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+
+        AtomicInteger cargas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        InstitucionDTO ruta = new InstitucionDTO();
+        ruta.setCodigoBic("ALFA");
+        cache.registrarCargador(bin -> {
+            cargas.incrementAndGet();
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ruta;
+        });
+
+        ExecutorService hilos = Executors.newFixedThreadPool(PETICIONES);
+        try {
+            CountDownLatch listos = new CountDownLatch(PETICIONES);
+            List<Future<Optional<InstitucionDTO>>> resultados = new ArrayList<>();
+            for (int i = 0; i < PETICIONES; i++) {
+                resultados.add(hilos.submit(() -> {
+                    listos.countDown();
+                    return cache.obtener(BIN);
+                }));
+            }
+            listos.await(5, TimeUnit.SECONDS);
+            // Da tiempo a que todas las peticiones lleguen a la carga en curso.
+            Thread.sleep(100);
+            liberar.countDown();
+
+            for (Future<Optional<InstitucionDTO>> resultado : resultados) {
+                assertThat(resultado.get(5, TimeUnit.SECONDS)).containsSame(ruta);
+            }
+        } finally {
+            hilos.shutdownNow();
+            ReflectionTestUtils.invokeMethod(cache, "cerrar");
+        }
+
+        assertThat(cargas).hasValue(1);
+        verify(valores, times(1)).get(CacheLookup.CACHE_KEY_PREFIX + BIN);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void laInvalidacionSoloQuitaLasEntradasDelBancoYDeSusPrefijos() {
+        InterruptorRedis interruptorRedis = mock(InterruptorRedis.class);
+        CacheLookup cache = new CacheLookup(mock(RedisTemplate.class), mock(StringRedisTemplate.class),
+                interruptorRedis, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntradas", 1000L);
+        ReflectionTestUtils.setField(cache, "ttlSegundos", 60L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+
+        Map<String, Integer> cargas = new HashMap<>();
+        cache.registrarCargador(bin -> {
+            cargas.merge(bin, 1, Integer::sum);
+            InstitucionDTO ruta = new InstitucionDTO();
+            ruta.setCodigoBic(bin.startsWith("4") ? "ALFA" : "BETA");
+            return ruta;
+        });
+        List<String> bins = List.of("411111", "419999", "520000", "530000");
+        try {
+            bins.forEach(cache::obtener);
+
+            // Otra réplica dio de alta 4111 en GAMA; antes lo resolvía ALFA.
+            assertThat(cache.recibirInvalidacion("otra|GAMA|4111|ALFA")).isEqualTo("GAMA");
+            bins.forEach(cache::obtener);
+            assertThat(cargas).containsExactlyInAnyOrderEntriesOf(
+                    Map.of("411111", 2, "419999", 1, "520000", 1, "530000", 1));
+
+            cache.invalidar("BETA");
+            bins.forEach(cache::obtener);
+            assertThat(cargas).containsExactlyInAnyOrderEntriesOf(
+                    Map.of("411111", 2, "419999", 1, "520000", 2, "530000", 2));
+        } finally {
+            ReflectionTestUtils.invokeMethod(cache, "cerrar");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.bancario.msdirectorio.servicio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bancario.msdirectorio.mapper.InstitucionMapper;
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+import com.bancario.msdirectorio.repositorio.InstitucionParcialRepositorio;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+class CoalescedorReglasTests {
+
+    private final InstitucionParcialRepositorio parcialRepositorio = mock(InstitucionParcialRepositorio.class);
+    private final InstitucionRepositorio institucionRepositorio = mock(InstitucionRepositorio.class);
+    private final IndiceEnrutamiento indice = new IndiceEnrutamiento(institucionRepositorio, new SnapshotRutasLocal());
+    private final CacheLookup cacheLookup = mock(CacheLookup.class);
+    private final CoalescedorReglas coalescedor = new CoalescedorReglas(parcialRepositorio, institucionRepositorio,
+            indice, cacheLookup, mock(RegistroCambios.class), new InstitucionMapper());
+
+    @BeforeEach
+    void preparar() {
+        ReflectionTestUtils.setField(coalescedor, "maxPorEscritura", 2);
+        indice.reconstruir(List.of(Bancos.alfa()));
+    }
+
+    @Test
+    void escribeEnTramosDeMaxPorEscrituraEnOrden() throws Exception {
+        Institucion guardada = Bancos.alfa("4111", "4222", "4333", "4444", "4555");
+        when(parcialRepositorio.anexarReglas(eq("alfa"), anyList(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(Bancos.alfa("4111", "4222")))
+                .thenReturn(CompletableFuture.completedFuture(Bancos.alfa("4111", "4222", "4333", "4444")))
+                .thenReturn(CompletableFuture.completedFuture(guardada));
+
+        CompletableFuture<Institucion> alta = anexar(Bancos.reglas("4111", "4222", "4333", "4444", "4555"));
+
+        assertThat(alta.get(5, TimeUnit.SECONDS)).isSameAs(guardada);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReglaEnrutamiento>> tramos = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Integer> previas = ArgumentCaptor.forClass(Integer.class);
+        verify(parcialRepositorio, times(3)).anexarReglas(eq("alfa"), tramos.capture(), previas.capture());
+        assertThat(tramos.getAllValues()).extracting(this::prefijos)
+                .containsExactly(List.of("4111", "4222"), List.of("4333", "4444"), List.of("4555"));
+        assertThat(previas.getAllValues()).containsExactly(0, 2, 4);
+        assertThat(indice.resolver("4555000").getCodigoBic()).isEqualTo("ALFA");
+        verify(cacheLookup).invalidarPrefijos(eq("ALFA"), any(), eq(List.of("4111", "4222", "4333", "4444", "4555")));
+    }
+
+    @Test
+    void unTramoFallidoAplicaLoEscritoYFallaElAlta() {
+        DynamoDbException error = (DynamoDbException) DynamoDbException.builder().message("sin capacidad").build();
+        when(parcialRepositorio.anexarReglas(eq("alfa"), anyList(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(Bancos.alfa("4111", "4222")))
+                .thenReturn(CompletableFuture.failedFuture(error));
+
+        CompletableFuture<Institucion> alta = anexar(Bancos.reglas("4111", "4222", "4333", "4444", "4555"));
+
+        assertThatThrownBy(() -> alta.get(5, TimeUnit.SECONDS)).hasCauseReference(error);
+        verify(parcialRepositorio, times(2)).anexarReglas(eq("alfa"), anyList(), anyInt());
+        // El primer tramo ya es durable: el índice y la cache lo reflejan.
+        assertThat(indice.resolver("4111000").getCodigoBic()).isEqualTo("ALFA");
+        assertThat(indice.resolver("4333000")).isNull();
+        verify(cacheLookup).invalidarPrefijos(eq("ALFA"), any(), eq(List.of("4111", "4222")));
+    }
+
+    @Test
+    void reintentarTrasUnFalloParcialNoDuplicaReglas() throws Exception {
+        DynamoDbException error = (DynamoDbException) DynamoDbException.builder().message("sin capacidad").build();
+        Institucion guardada = Bancos.alfa("4111", "4222", "4333", "4444", "4555");
+        when(parcialRepositorio.anexarReglas(eq("alfa"), anyList(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(Bancos.alfa("4111", "4222")))
+                .thenReturn(CompletableFuture.failedFuture(error))
+                .thenReturn(CompletableFuture.completedFuture(Bancos.alfa("4111", "4222", "4333", "4444")))
+                .thenReturn(CompletableFuture.completedFuture(guardada));
+        List<ReglaEnrutamiento> reglas = Bancos.reglas("4111", "4222", "4333", "4444", "4555");
+        assertThatThrownBy(() -> anexar(reglas).get(5, TimeUnit.SECONDS)).hasCauseReference(error);
+
+        CompletableFuture<Institucion> reintento = anexar(reglas);
+
+        assertThat(reintento.get(5, TimeUnit.SECONDS)).isSameAs(guardada);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReglaEnrutamiento>> tramos = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Integer> previas = ArgumentCaptor.forClass(Integer.class);
+        verify(parcialRepositorio, times(4)).anexarReglas(eq("alfa"), tramos.capture(), previas.capture());
+        assertThat(tramos.getAllValues().subList(2, 4)).extracting(this::prefijos)
+                .containsExactly(List.of("4333", "4444"), List.of("4555"));
+        assertThat(previas.getAllValues()).containsExactly(0, 2, 2, 4);
+    }
+
+    @Test
+    void soloFallanLasAltasQueNoQuedaronEscritas() throws Exception {
+        DynamoDbException error = (DynamoDbException) DynamoDbException.builder().message("sin capacidad").build();
+        Institucion primera = Bancos.alfa("4111", "4222");
+        when(parcialRepositorio.anexarReglas(eq("alfa"), anyList(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(primera))
+                .thenReturn(CompletableFuture.failedFuture(error));
+
+        List<CompletableFuture<Institucion>> altas = anexarJuntas(Bancos.reglas("4111", "4222"), Bancos.reglas("4333", "4444"));
+
+        assertThat(altas.get(0).get(5, TimeUnit.SECONDS)).isSameAs(primera);
+        assertThatThrownBy(() -> altas.get(1).get(5, TimeUnit.SECONDS)).hasCauseReference(error);
+    }
+
+    @Test
+    void unConflictoDeTamanoReleeYReintentaSobreLoGuardado() throws Exception {
+        ConditionalCheckFailedException conflicto = ConditionalCheckFailedException.builder().message("tamaño").build();
+        // Otra réplica anexó 4999 entretanto.
+        Institucion releida = Bancos.alfa("4999");
+        Institucion guardada = Bancos.alfa("4999", "4111");
+        when(parcialRepositorio.anexarReglas(eq("alfa"), anyList(), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(conflicto))
+                .thenReturn(CompletableFuture.completedFuture(guardada));
+        when(institucionRepositorio.findByIdConsistente("alfa")).thenReturn(Optional.of(releida));
+
+        CompletableFuture<Institucion> alta = anexar(Bancos.reglas("4111"));
+
+        assertThat(alta.get(5, TimeUnit.SECONDS)).isSameAs(guardada);
+        ArgumentCaptor<Integer> previas = ArgumentCaptor.forClass(Integer.class);
+        verify(parcialRepositorio, times(2)).anexarReglas(eq("alfa"), anyList(), previas.capture());
+        assertThat(previas.getAllValues()).containsExactly(0, 1);
+    }
+
+    private CompletableFuture<Institucion> anexar(List<ReglaEnrutamiento> reglas) {
+        return anexarJuntas(reglas).get(0);
+    }
+
+    /**
+     * {@code anexar} espera al volcado: cada alta se lanza en otro hilo y, cuando
+     * están todas encoladas, se vuelca hasta que terminan.
+     */
+    @SafeVarargs
+    private List<CompletableFuture<Institucion>> anexarJuntas(List<ReglaEnrutamiento>... lotes) {
+        List<CompletableFuture<Institucion>> altas = new ArrayList<>();
+        for (List<ReglaEnrutamiento> reglas : lotes) {
+            CompletableFuture<Institucion> alta = new CompletableFuture<>();
+            altas.add(alta);
+            Thread.startVirtualThread(() -> {
+                try {
+                    alta.complete(coalescedor.anexar(Bancos.alfa(), reglas));
+                } catch (RuntimeException e) {
+                    alta.completeExceptionally(e instanceof CompletionException c ? c.getCause() : e);
+                }
+            });
+        }
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (encoladas() < lotes.length && System.nanoTime() < limite) {
+            Thread.onSpinWait();
+        }
+        while (!altas.stream().allMatch(CompletableFuture::isDone) && System.nanoTime() < limite) {
+            coalescedor.volcar();
+            Thread.onSpinWait();
+        }
+        return altas;
+    }
+
+    private int encoladas() {
+        @SuppressWarnings("unchecked")
+        Map<String, Queue<?>> pendientes = (Map<String, Queue<?>>) ReflectionTestUtils.getField(coalescedor,
+                "pendientes");
+        Queue<?> cola = pendientes.get("ALFA");
+        return cola == null ? 0 : cola.size();
+    }
+
+    private List<String> prefijos(List<ReglaEnrutamiento> reglas) {
+        return reglas.stream().map(ReglaEnrutamiento::getPrefijoBin).toList();
+    }
+}
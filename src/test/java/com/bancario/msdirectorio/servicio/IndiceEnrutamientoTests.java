@@ -0,0 +1,148 @@
+package com.bancario.msdirectorio.servicio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.InterruptorCircuito;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+
+class IndiceEnrutamientoTests {
+
+    private final InstitucionRepositorio repositorio = mock(InstitucionRepositorio.class);
+    private final IndiceEnrutamiento indice = new IndiceEnrutamiento(repositorio, new SnapshotRutasLocal());
+
+    @Test
+    void resuelvePorPrefijoMasLargo() {
+        indice.reconstruir(List.of(banco("CORTO", "4"), banco("LARGO", "4567"), banco("MEDIO", "45")));
+
+        assertThat(bic("4567890")).isEqualTo("LARGO");
+        assertThat(bic("4561000")).isEqualTo("MEDIO");
+        assertThat(bic("4000000")).isEqualTo("CORTO");
+        assertThat(bic("5000000")).isNull();
+        assertThat(bic("45x")).isEqualTo("MEDIO");
+    }
+
+    @Test
+    void prefijoDuplicadoEsDelPrimerBanco() {
+        indice.reconstruir(List.of(banco("PRIMERO", "4111"), banco("SEGUNDO", "4111", "52")));
+
+        assertThat(bic("4111222")).isEqualTo("PRIMERO");
+        assertThat(bic("5200000")).isEqualTo("SEGUNDO");
+    }
+
+    @Test
+    void reemplazarReglasQuitaLasAnteriores() {
+        indice.reconstruir(List.of(banco("ALFA", "4111", "4222"), banco("BETA", "4")));
+
+        indice.actualizar(banco("ALFA", "5333"));
+
+        assertThat(bic("4111000")).isEqualTo("BETA");
+        assertThat(bic("4222000")).isEqualTo("BETA");
+        assertThat(bic("5333000")).isEqualTo("ALFA");
+    }
+
+    @Test
+    void reglasAnadidasSeParchanSobreElTrie() {
+        indice.reconstruir(List.of(banco("ALFA", "4111"), banco("BETA", "4")));
+
+        indice.actualizar(banco("ALFA", "4111", "4999"));
+        indice.actualizar(banco("BETA", "4", "6"));
+
+        assertThat(bic("4111000")).isEqualTo("ALFA");
+        assertThat(bic("4999000")).isEqualTo("ALFA");
+        assertThat(bic("4500000")).isEqualTo("BETA");
+        assertThat(bic("6000000")).isEqualTo("BETA");
+    }
+
+    @Test
+    void parcheRespetaAlPropietarioComoLaReconstruccion() {
+        indice.reconstruir(List.of(banco("PRIMERO", "4111"), banco("SEGUNDO", "52")));
+
+        // SEGUNDO añade un prefijo que ya es de PRIMERO y PRIMERO uno que ya es de SEGUNDO.
+        indice.actualizar(banco("SEGUNDO", "52", "4111"));
+        indice.actualizar(banco("PRIMERO", "4111", "52"));
+
+        assertThat(bic("4111000")).isEqualTo("PRIMERO");
+        assertThat(bic("5200000")).isEqualTo("PRIMERO");
+    }
+
+    @Test
+    void cambioSinReglasSustituyeLaInstancia() {
+        indice.reconstruir(List.of(banco("ALFA", "4111")));
+        Institucion abierta = banco("ALFA", "4111");
+        abierta.setInterruptorCircuito(new InterruptorCircuito(true, 5, null));
+
+        indice.actualizar(abierta);
+
+        assertThat(indice.resolver("4111000")).isSameAs(abierta);
+        assertThat(indice.buscarPorBic("ALFA")).isSameAs(abierta);
+    }
+
+    @Test
+    void bancoNuevoSeAnadeYTomaSuPrefijo() {
+        indice.reconstruir(List.of(banco("ALFA", "4")));
+
+        assertThat(indice.propietarios(List.of("4777"), "NUEVO")).containsExactly("ALFA");
+        indice.actualizar(banco("NUEVO", "4777"));
+
+        assertThat(bic("4777000")).isEqualTo("NUEVO");
+        assertThat(bic("4000000")).isEqualTo("ALFA");
+        assertThat(indice.instituciones()).hasSize(2);
+        assertThat(indice.propietarios(List.of("4777"), "NUEVO")).isEmpty();
+    }
+
+    @Test
+    void unParcheDuranteElRefrescoSobreviveAlScan() {
+        indice.reconstruir(List.of(banco("ALFA", "4111"), banco("BETA", "52")));
+        when(repositorio.findAllConsistente()).thenAnswer(invocacion -> {
+            // La escritura llega mientras el scan está en curso, y el scan ya leyó ALFA.
+            indice.actualizar(banco("ALFA", "4111", "4999"));
+            return List.of(banco("ALFA", "4111"), banco("BETA", "52", "6"));
+        });
+
+        indice.refrescar();
+
+        assertThat(bic("4999000")).isEqualTo("ALFA");
+        assertThat(bic("6000000")).isEqualTo("BETA");
+        verify(repositorio, never()).findAll();
+    }
+
+    @Test
+    void unParcheAnteriorAlScanNoPisaLoEscaneado() {
+        indice.reconstruir(List.of(banco("ALFA", "4111")));
+        indice.actualizar(banco("ALFA", "4111", "4999"));
+        when(repositorio.findAllConsistente()).thenReturn(List.of(banco("ALFA", "4111", "4999", "5000")));
+
+        indice.refrescar();
+
+        assertThat(bic("5000000")).isEqualTo("ALFA");
+    }
+
+    private String bic(String numero) {
+        Institucion inst = indice.resolver(numero);
+        return inst == null ? null : inst.getCodigoBic();
+    }
+
+    private static Institucion banco(String bic, String... prefijos) {
+        Institucion inst = new Institucion();
+        inst.setId(bic.toLowerCase());
+        inst.setCodigoBic(bic);
+        inst.setInterruptorCircuito(new InterruptorCircuito(false, 0, null));
+        List<ReglaEnrutamiento> reglas = new ArrayList<>();
+        for (String prefijo : prefijos) {
+            reglas.add(new ReglaEnrutamiento(prefijo, null));
+        }
+        inst.setReglasEnrutamiento(reglas);
+        return inst;
+    }
+}
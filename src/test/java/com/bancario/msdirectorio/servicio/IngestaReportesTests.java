@@ -0,0 +1,85 @@
+package com.bancario.msdirectorio.servicio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bancario.msdirectorio.dto.AcuseReportesDTO;
+import com.bancario.msdirectorio.dto.ReporteResultadoDTO;
+import com.bancario.msdirectorio.dto.ReporteResultadoDTO.Resultado;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestaReportesTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IndiceEnrutamiento indice = new IndiceEnrutamiento(mock(InstitucionRepositorio.class),
+            new SnapshotRutasLocal());
+    private final MotorInterruptor motor = mock(MotorInterruptor.class);
+    private final IngestaReportes ingesta = new IngestaReportes(motor, indice, meterRegistry);
+
+    @BeforeEach
+    void preparar() {
+        ReflectionTestUtils.setField(ingesta, "capacidad", 2);
+        ReflectionTestUtils.setField(ingesta, "maxPorPasada", 16);
+        ReflectionTestUtils.invokeMethod(ingesta, "init");
+    }
+
+    @Test
+    void cuentaPorSeparadoInvalidosYColaLlena() {
+        AcuseReportesDTO acuse = ingesta.encolar(Arrays.asList(
+                reporte("ALFA", Resultado.EXITO),
+                null,
+                reporte(null, Resultado.FALLO),
+                reporte("ALFA", null),
+                reporte("BETA", Resultado.FALLO),
+                reporte("GAMA", Resultado.FALLO)));
+
+        assertThat(acuse).isEqualTo(new AcuseReportesDTO(2, 1, 3));
+        assertThat(descartados("invalido")).isEqualTo(3);
+        assertThat(descartados("cola_llena")).isEqualTo(1);
+    }
+
+    @Test
+    void soloRegistraLatenciaDeBancosDelIndice() {
+        indice.reconstruir(List.of(Bancos.alfa("4111")));
+
+        ingesta.encolar(List.of(reporte("ALFA", Resultado.EXITO), reporte("DESCONOCIDO", Resultado.FALLO)));
+        ingesta.consumir();
+
+        assertThat(meterRegistry.find("directorio.destino.latencia").tag("bic", "ALFA").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.find("directorio.destino.latencia").tag("bic", "DESCONOCIDO").timer()).isNull();
+    }
+
+    @Test
+    void conElIndiceCargadoDescartaBicsDesconocidos() {
+        indice.reconstruir(List.of(Bancos.alfa("4111")));
+
+        ingesta.encolar(List.of(reporte("ALFA", Resultado.FALLO), reporte("DESCONOCIDO", Resultado.FALLO)));
+        ingesta.consumir();
+
+        verify(motor).registrarFallos("ALFA", 1);
+        verify(motor, never()).registrarFallos("DESCONOCIDO", 1);
+        verify(motor, never()).registrarExito(anyString());
+        assertThat(descartados("bic_desconocido")).isEqualTo(1);
+    }
+
+    private double descartados(String motivo) {
+        return meterRegistry.get("directorio.reportes.descartados").tag("motivo", motivo).counter().count();
+    }
+
+    private static ReporteResultadoDTO reporte(String bic, Resultado resultado) {
+        return new ReporteResultadoDTO(bic, resultado, 5L);
+    }
+}
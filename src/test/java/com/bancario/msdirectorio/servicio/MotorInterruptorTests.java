@@ -0,0 +1,159 @@
+package com.bancario.msdirectorio.servicio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bancario.msdirectorio.mapper.InstitucionMapper;
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.InterruptorCircuito;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+import com.bancario.msdirectorio.repositorio.InterruptorCircuitoRepositorio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MotorInterruptorTests {
+
+    private static final LocalDateTime HACE_UN_MINUTO = LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1);
+
+    private final InterruptorCircuitoRepositorio interruptorRepositorio = mock(InterruptorCircuitoRepositorio.class);
+    private final InstitucionRepositorio institucionRepositorio = mock(InstitucionRepositorio.class);
+    private final IndiceEnrutamiento indice = new IndiceEnrutamiento(institucionRepositorio, new SnapshotRutasLocal());
+    private final MotorInterruptor motor = new MotorInterruptor(interruptorRepositorio, institucionRepositorio, indice,
+            mock(CacheLookup.class), mock(RegistroCambios.class), new InstitucionMapper(), new SimpleMeterRegistry());
+
+    @BeforeEach
+    void preparar() {
+        ReflectionTestUtils.setField(motor, "umbralFallos", 5);
+        ReflectionTestUtils.setField(motor, "ventanaSegundos", 60L);
+        ReflectionTestUtils.setField(motor, "recuperacionSegundos", 30L);
+        indice.reconstruir(List.of(banco(false, 0)));
+        when(interruptorRepositorio.abrir(eq("alfa"), any())).thenReturn(CompletableFuture.completedFuture(true));
+    }
+
+    @Test
+    void trasElCierreUnSoloFalloNoReabre() {
+        abrir();
+        when(interruptorRepositorio.cerrar("alfa", HACE_UN_MINUTO)).thenReturn(CompletableFuture.completedFuture(true));
+        when(institucionRepositorio.findByIdConsistente("alfa")).thenReturn(Optional.of(banco(false, 0)));
+
+        motor.cerrarRecuperados();
+        unFalloMas();
+
+        verify(interruptorRepositorio, times(1)).abrir(eq("alfa"), any());
+    }
+
+    @Test
+    void cierreDeOtraReplicaTambienVaciaLaVentana() {
+        abrir();
+        when(interruptorRepositorio.cerrar("alfa", HACE_UN_MINUTO)).thenReturn(CompletableFuture.completedFuture(false));
+        when(institucionRepositorio.findByIdConsistente("alfa")).thenReturn(Optional.of(banco(false, 0)));
+
+        motor.cerrarRecuperados();
+        unFalloMas();
+
+        verify(interruptorRepositorio, times(1)).abrir(eq("alfa"), any());
+    }
+
+    @Test
+    void conElIndiceCargadoUnBicDesconocidoNoConsultaDynamo() {
+        motor.registrarFallos("INVENTADO", 3);
+        motor.persistir();
+
+        verify(institucionRepositorio, never()).findByCodigoBic("INVENTADO");
+        verify(interruptorRepositorio, never()).sumarFallos(eq("INVENTADO"), anyInt(), any());
+    }
+
+    @Test
+    void unExitoReiniciaLaRachaAunqueEstaReplicaNoVieraFallos() {
+        // El índice dice 0 fallos, pero otra réplica pudo sumarlos en DynamoDB.
+        when(interruptorRepositorio.reiniciarFallos("alfa")).thenReturn(CompletableFuture.completedFuture(true));
+
+        motor.registrarExito("ALFA");
+        motor.persistir();
+
+        verify(interruptorRepositorio).reiniciarFallos("alfa");
+    }
+
+    @Test
+    void fallosConcurrentesAlCambiarDeEpocaNoSePierden() throws Exception {
+        int hilos = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        int rondas = 20_000;
+        long ancho = 1000;
+        MotorInterruptor.Contador contador = new MotorInterruptor.Contador();
+        AtomicInteger ronda = new AtomicInteger();
+        AtomicInteger hechos = new AtomicInteger();
+        List<Thread> competidores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            competidores.add(Thread.ofPlatform().daemon().start(() -> {
+                for (int r = 1; r <= rondas; r++) {
+                    while (ronda.get() < r) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        Thread.yield();
+                    }
+                    // Cada ronda cae en la misma cubeta con una época nueva: todos
+                    // los hilos compiten por reiniciarla y sumar a la vez.
+                    contador.registrar(r * 10L * ancho, ancho, 1);
+                    hechos.incrementAndGet();
+                }
+            }));
+        }
+        try {
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            for (int r = 1; r <= rondas; r++) {
+                ronda.set(r);
+                while (hechos.get() < r * hilos && System.nanoTime() < limite) {
+                    Thread.yield();
+                }
+                assertThat(contador.enVentana(r * 10L * ancho, ancho)).as("ronda %d", r).isEqualTo(hilos);
+            }
+        } finally {
+            competidores.forEach(Thread::interrupt);
+        }
+    }
+
+    /**
+     * Cinco fallos abren el interruptor; la relectura lo devuelve abierto con la
+     * recuperación ya vencida.
+     */
+    private void abrir() {
+        when(interruptorRepositorio.sumarFallos(eq("alfa"), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(5));
+        when(institucionRepositorio.findByIdConsistente("alfa")).thenReturn(Optional.of(banco(true, 5)));
+        motor.registrarFallos("ALFA", 5);
+        motor.persistir();
+        verify(interruptorRepositorio, times(1)).abrir(eq("alfa"), any());
+    }
+
+    private void unFalloMas() {
+        when(interruptorRepositorio.sumarFallos(eq("alfa"), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(1));
+        motor.registrarFallo("ALFA");
+        motor.persistir();
+    }
+
+    private static Institucion banco(boolean abierto, int fallos) {
+        return Bancos.alfa(new InterruptorCircuito(abierto, fallos, abierto ? HACE_UN_MINUTO : null), "4111");
+    }
+}
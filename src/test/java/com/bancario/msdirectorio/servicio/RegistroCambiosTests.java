@@ -0,0 +1,109 @@
+package com.bancario.msdirectorio.servicio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bancario.msdirectorio.dto.CambioDirectorioDTO;
+import com.bancario.msdirectorio.dto.InstitucionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RegistroCambiosTests {
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final InterruptorRedis interruptorRedis = mock(InterruptorRedis.class);
+    private final RegistroCambios registro = new RegistroCambios(redis, interruptorRedis, new ObjectMapper(),
+            new SimpleMeterRegistry());
+
+    @BeforeEach
+    void preparar() {
+        ReflectionTestUtils.setField(registro, "retencion", 100L);
+        ReflectionTestUtils.setField(registro, "maxPendientes", 100);
+        ReflectionTestUtils.invokeMethod(registro, "init");
+    }
+
+    @AfterEach
+    void cerrar() {
+        ReflectionTestUtils.invokeMethod(registro, "cerrar");
+    }
+
+    @Test
+    void conElInterruptorAbiertoNoLlamaARedis() throws Exception {
+        when(interruptorRedis.permite()).thenReturn(false);
+        registro.registrar(CambioDirectorioDTO.Tipo.PARAMETROS, banco("ALFA"));
+        esperarVolcador();
+
+        registro.volcar();
+
+        verifyNoInteractions(redis);
+        assertThat(pendientes()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void trasUnFalloReintentaEnOrdenConLaMarcaDelRegistro() throws Exception {
+        when(interruptorRedis.permite()).thenReturn(false);
+        registro.registrar(CambioDirectorioDTO.Tipo.PARAMETROS, banco("ALFA"));
+        registro.registrar(CambioDirectorioDTO.Tipo.INTERRUPTOR, banco("BETA"));
+        esperarVolcador();
+        when(interruptorRedis.permite()).thenReturn(true);
+        when(redis.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(new RedisConnectionFailureException("caído"))
+                .thenReturn(1L, 2L);
+
+        registro.volcar();
+        assertThat(pendientes()).isEqualTo(2);
+        registro.volcar();
+
+        assertThat(pendientes()).isZero();
+        ArgumentCaptor<Object> argumentos = ArgumentCaptor.forClass(Object.class);
+        verify(redis, times(3)).execute(any(RedisScript.class), anyList(), argumentos.capture(),
+                argumentos.capture(), argumentos.capture(), argumentos.capture());
+        List<Object> valores = argumentos.getAllValues();
+        // Cuatro argumentos por llamada: cambio, retención, BIC y marca.
+        assertThat(valores.get(6)).isEqualTo("ALFA");
+        assertThat(valores.get(10)).isEqualTo("BETA");
+        assertThat(valores.get(7)).isEqualTo(valores.get(3));
+        assertThat(Long.parseLong((String) valores.get(11))).isGreaterThanOrEqualTo(
+                Long.parseLong((String) valores.get(7)));
+    }
+
+    /**
+     * {@code registrar} programa el volcado en el hilo propio del registro; se
+     * espera a que termine para que el test controle cuándo se vuelca.
+     */
+    private void esperarVolcador() throws Exception {
+        ((ExecutorService) ReflectionTestUtils.getField(registro, "volcador")).submit(() -> { })
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    private int pendientes() {
+        return ((Deque<?>) ReflectionTestUtils.getField(registro, "pendientes")).size();
+    }
+
+    private static InstitucionDTO banco(String bic) {
+        return InstitucionDTO.builder().id(bic.toLowerCase()).codigoBic(bic).build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.bancario.msdirectorio.servicio;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bancario.msdirectorio.modelo.Institucion;
+import com.bancario.msdirectorio.modelo.InterruptorCircuito;
+import com.bancario.msdirectorio.modelo.ReglaEnrutamiento;
+import com.bancario.msdirectorio.repositorio.InstitucionRepositorio;
+
+class SnapshotRutasLocalTests {
+
+    private static final LocalDateTime ULTIMO_FALLO = LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_456_789);
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void idaYVueltaConservaLosDatosDeRuta() throws IOException {
+        Path ruta = guardar(List.of(banco(0, true, "4111"), banco(1, false, "52")));
+
+        SnapshotRutasLocal snapshot = abrir(ruta);
+
+        assertThat(snapshot.disponible()).isTrue();
+        Institucion abierta = snapshot.resolver("4111000000");
+        assertThat(abierta.getId()).isEqualTo("id-0");
+        assertThat(abierta.getCodigoBic()).isEqualTo("BANCO0");
+        assertThat(abierta.getNombre()).isEqualTo("Banco ñ 0");
+        assertThat(abierta.getUrlDestino()).isEqualTo("https://banco0.example/api");
+        assertThat(abierta.getLlavePublica()).isNull();
+        assertThat(abierta.getEstadoOperativo()).isEqualTo("ONLINE");
+        assertThat(abierta.getInterruptorCircuito().isEstaAbierto()).isTrue();
+        assertThat(abierta.getInterruptorCircuito().getFallosConsecutivos()).isEqualTo(5);
+        assertThat(abierta.getInterruptorCircuito().getUltimoFallo()).isEqualTo(ULTIMO_FALLO);
+        assertThat(snapshot.resolver("5200000000").getInterruptorCircuito().getUltimoFallo()).isNull();
+        // Cada institución se decodifica una vez.
+        assertThat(snapshot.resolver("4111999999")).isSameAs(abierta);
+    }
+
+    @Test
+    void ficheroCorruptoSeDescarta() throws IOException {
+        Path ruta = guardar(List.of(banco(0, false, "4111")));
+        byte[] bytes = Files.readAllBytes(ruta);
+        bytes[bytes.length - 3] ^= 0x5A;
+        Files.write(ruta, bytes);
+
+        assertThat(abrir(ruta).disponible()).isFalse();
+    }
+
+    @Test
+    void ficheroTruncadoSeDescarta() throws IOException {
+        Path ruta = guardar(List.of(banco(0, false, "4111")));
+        Files.write(ruta, Arrays.copyOf(Files.readAllBytes(ruta), 20));
+
+        assertThat(abrir(ruta).disponible()).isFalse();
+    }
+
+    @Test
+    void resuelveIgualQueElIndice() throws IOException {
+        List<Institucion> bancos = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            // Prefijos solapados de distinta longitud y algún duplicado entre bancos.
+            bancos.add(banco(i, i % 7 == 0, Integer.toString(4 + i % 3), "4" + (100 + i), "4" + (100 + i) + i % 10,
+                    "5" + (i % 5) + "1"));
+        }
+        IndiceEnrutamiento indice = new IndiceEnrutamiento(mock(InstitucionRepositorio.class), snapshot(ruta()));
+        indice.reconstruir(bancos);
+        indice.guardarSnapshotLocal();
+
+        SnapshotRutasLocal snapshot = abrir(ruta());
+        for (int n = 0; n < 100_000; n += 7) {
+            String numero = Integer.toString(n);
+            Institucion esperada = indice.resolver(numero);
+            Institucion leida = snapshot.resolver(numero);
+            if (esperada == null) {
+                assertThat(leida).as(numero).isNull();
+            } else {
+                assertThat(leida).as(numero).isNotNull();
+                assertThat(leida.getCodigoBic()).as(numero).isEqualTo(esperada.getCodigoBic());
+                assertThat(leida.getInterruptorCircuito().isEstaAbierto())
+                        .isEqualTo(esperada.getInterruptorCircuito().isEstaAbierto());
+            }
+        }
+    }
+
+    @Test
+    void elIndiceEnrutaConElSnapshotMientrasNoCarga() throws IOException {
+        guardar(List.of(banco(0, false, "4111")));
+        InstitucionRepositorio repositorio = mock(InstitucionRepositorio.class);
+        IndiceEnrutamiento indice = new IndiceEnrutamiento(repositorio, abrir(ruta()));
+
+        assertThat(indice.enrutaDesdeSnapshotLocal()).isTrue();
+        assertThat(indice.resolver("4111000000").getCodigoBic()).isEqualTo("BANCO0");
+        verifyNoInteractions(repositorio);
+    }
+
+    @Test
+    void alCargarElIndiceSeSueltaElMapeo() throws IOException {
+        guardar(List.of(banco(0, false, "4111")));
+        SnapshotRutasLocal snapshot = abrir(ruta());
+        IndiceEnrutamiento indice = new IndiceEnrutamiento(mock(InstitucionRepositorio.class), snapshot);
+
+        indice.reconstruir(List.of(banco(1, false, "52")));
+
+        assertThat(snapshot.disponible()).isFalse();
+        assertThat(indice.resolver("4111000000")).isNull();
+        assertThat(indice.resolver("5200000000").getCodigoBic()).isEqualTo("BANCO1");
+    }
+
+    @Test
+    void guardarCreaElDirectorio() throws IOException {
+        Path anidada = directorio.resolve("datos/rutas.bin");
+        IndiceEnrutamiento indice = new IndiceEnrutamiento(mock(InstitucionRepositorio.class), snapshot(anidada));
+        indice.reconstruir(List.of(banco(0, false, "4111")));
+
+        indice.guardarSnapshotLocal();
+
+        assertThat(abrir(anidada).disponible()).isTrue();
+    }
+
+    private Path guardar(List<Institucion> bancos) {
+        IndiceEnrutamiento indice = new IndiceEnrutamiento(mock(InstitucionRepositorio.class), snapshot(ruta()));
+        indice.reconstruir(bancos);
+        indice.guardarSnapshotLocal();
+        assertThat(ruta()).exists();
+        return ruta();
+    }
+
+    private Path ruta() {
+        return directorio.resolve("rutas.bin");
+    }
+
+    private static SnapshotRutasLocal abrir(Path ruta) {
+        SnapshotRutasLocal snapshot = snapshot(ruta);
+        snapshot.abrir();
+        return snapshot;
+    }
+
+    private static SnapshotRutasLocal snapshot(Path ruta) {
+        SnapshotRutasLocal snapshot = new SnapshotRutasLocal();
+        ReflectionTestUtils.setField(snapshot, "habilitado", true);
+        ReflectionTestUtils.setField(snapshot, "ruta", ruta);
+        return snapshot;
+    }
+
+    private static Institucion banco(int i, boolean abierto, String... prefijos) {
+        List<ReglaEnrutamiento> reglas = new ArrayList<>();
+        for (String prefijo : prefijos) {
+            reglas.add(new ReglaEnrutamiento(prefijo, null));
+        }
+        return new Institucion("id-" + i, "BANCO" + i, "Banco ñ " + i, "https://banco" + i + ".example/api", null,
+                "ONLINE", reglas, abierto ? new InterruptorCircuito(true, 5, ULTIMO_FALLO)
+                        : new InterruptorCircuito(false, 0, null));
+    }
+}